@@ -18,6 +18,9 @@
  */
 package de.rwth.idsg.steve;
 
+import com.google.common.base.Splitter;
+import de.rwth.idsg.steve.ocpp.ws.custom.WsMessageIdStrategy;
+import de.rwth.idsg.steve.ocpp.ws.custom.WsMessageIdStrategyEnum;
 import de.rwth.idsg.steve.ocpp.ws.custom.WsSessionSelectStrategy;
 import de.rwth.idsg.steve.ocpp.ws.custom.WsSessionSelectStrategyEnum;
 import de.rwth.idsg.steve.utils.PropertiesFileLoader;
@@ -26,6 +29,11 @@ import lombok.Getter;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * @author Sevket Goekay <goekay@dbis.rwth-aachen.de>
  * @since 19.08.2014
@@ -57,6 +65,8 @@ public enum SteveConfiguration {
     private final Auth auth;
     private final DB db;
     private final Jetty jetty;
+    private final Retention retention;
+    private final boolean virtualThreadsEnabled;
 
     SteveConfiguration() {
         PropertiesFileLoader p = new PropertiesFileLoader("main.properties");
@@ -65,6 +75,7 @@ public enum SteveConfiguration {
         steveVersion = p.getString("steve.version");
         gitDescribe = useFallbackIfNotSet(p.getOptionalString("git.describe"), null);
         profile = ApplicationProfile.fromName(p.getString("profile"));
+        virtualThreadsEnabled = p.getOptionalBoolean("virtual.threads.enabled");
 
         jetty = Jetty.builder()
                      .serverHost(p.getString("server.host"))
@@ -86,6 +97,19 @@ public enum SteveConfiguration {
                .sqlLogging(p.getBoolean("db.sql.logging"))
                .build();
 
+        retention = Retention.builder()
+                             .meterValuesRawDays(
+                                     useFallbackIfNotSet(p.getOptionalInt("retention.meter.values.raw.days"), 0))
+                             .meterValues15MinDays(
+                                     useFallbackIfNotSet(p.getOptionalInt("retention.meter.values.15min.days"), 0))
+                             .meterValuesDailyDays(
+                                     useFallbackIfNotSet(p.getOptionalInt("retention.meter.values.daily.days"), 0))
+                             .connectorStatusDays(
+                                     useFallbackIfNotSet(p.getOptionalInt("retention.connector.status.days"), 0))
+                             .deleteBatchSize(
+                                     useFallbackIfNotSet(p.getOptionalInt("retention.delete.batch.size"), 5_000))
+                             .build();
+
         PasswordEncoder encoder = new BCryptPasswordEncoder();
 
         auth = Auth.builder()
@@ -98,6 +122,25 @@ public enum SteveConfiguration {
                    .autoRegisterUnknownStations(p.getOptionalBoolean("auto.register.unknown.stations"))
                    .wsSessionSelectStrategy(
                            WsSessionSelectStrategyEnum.fromName(p.getString("ws.session.select.strategy")))
+                   .wsMessageIdStrategy(WsMessageIdStrategyEnum.fromName(
+                           useFallbackIfNotSet(p.getOptionalString("ws.message.id.strategy"), "NODE_COUNTER")))
+                   .wsIncomingThreads(useFallbackIfNotSet(p.getOptionalInt("ws.incoming.threads"),
+                           Math.max(4, 2 * Runtime.getRuntime().availableProcessors())))
+                   .wsIncomingQueueSize(useFallbackIfNotSet(p.getOptionalInt("ws.incoming.queue.size"), 100))
+                   .wsIncomingRateLimitsPerMinute(
+                           toRateLimits(p.getStringList("ws.incoming.rate.limits.per.minute")))
+                   .wsCallTimeoutInSeconds(useFallbackIfNotSet(p.getOptionalInt("ws.call.timeout.seconds"), 60))
+                   .wsMaxPendingCallsPerSession(useFallbackIfNotSet(p.getOptionalInt("ws.call.max.pending"), 100))
+                   .wsHandshakeRatePerSecond(
+                           useFallbackIfNotSet(p.getOptionalInt("ws.handshake.rate.per.second"), 100))
+                   .wsHandshakeRatePerAddressPerSecond(
+                           useFallbackIfNotSet(p.getOptionalInt("ws.handshake.rate.per.address.per.second"), 0))
+                   .wsHandshakeMaxConcurrent(useFallbackIfNotSet(p.getOptionalInt("ws.handshake.max.concurrent"), 50))
+                   .meterValuesWriteBehindEnabled(p.getOptionalBoolean("meter.values.write.behind.enabled"))
+                   .meterValuesQueueSize(useFallbackIfNotSet(p.getOptionalInt("meter.values.queue.size"), 10_000))
+                   .meterValuesBatchSize(useFallbackIfNotSet(p.getOptionalInt("meter.values.batch.size"), 500))
+                   .meterValuesFlushIntervalInMillis(
+                           useFallbackIfNotSet(p.getOptionalInt("meter.values.flush.interval.millis"), 1_000))
                    .build();
 
         validate();
@@ -123,6 +166,30 @@ public enum SteveConfiguration {
         }
     }
 
+    private static int useFallbackIfNotSet(Integer value, int fallback) {
+        return (value == null) ? fallback : value;
+    }
+
+    /**
+     * @param list of "Action:LimitPerMinute" entries. A limit of 0 is the same as no entry.
+     */
+    private static Map<String, Integer> toRateLimits(List<String> list) {
+        Map<String, Integer> map = new HashMap<>();
+        for (String entry : list) {
+            List<String> parts = Splitter.on(':').trimResults().splitToList(entry);
+            if (parts.size() != 2) {
+                throw new IllegalArgumentException(
+                        "Invalid rate limit '" + entry + "'. The format is Action:LimitPerMinute");
+            }
+
+            int limit = Integer.parseInt(parts.get(1));
+            if (limit > 0) {
+                map.put(parts.get(0), limit);
+            }
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
     private String sanitizeContextPath(String s) {
         if (s == null || "/".equals(s)) {
             return "";
@@ -174,6 +241,21 @@ public enum SteveConfiguration {
         private final boolean sqlLogging;
     }
 
+    // Retention of the history tables. A value of 0 days keeps the rows forever.
+    @Builder @Getter
+    public static class Retention {
+        private final int meterValuesRawDays;
+        private final int meterValues15MinDays;
+        private final int meterValuesDailyDays;
+        private final int connectorStatusDays;
+        private final int deleteBatchSize;
+
+        public boolean isEnabled() {
+            return meterValuesRawDays > 0 || meterValues15MinDays > 0 || meterValuesDailyDays > 0
+                    || connectorStatusDays > 0;
+        }
+    }
+
     // Credentials for Web interface access
     @Builder @Getter
     public static class Auth {
@@ -187,6 +269,29 @@ public enum SteveConfiguration {
     public static class Ocpp {
         private final boolean autoRegisterUnknownStations;
         private final WsSessionSelectStrategy wsSessionSelectStrategy;
+        private final WsMessageIdStrategy wsMessageIdStrategy;
+
+        // Processing of incoming WebSocket messages
+        private final int wsIncomingThreads;
+        private final int wsIncomingQueueSize;
+
+        // Key = action, value = limit per minute and station
+        private final Map<String, Integer> wsIncomingRateLimitsPerMinute;
+
+        // Outgoing calls to WebSocket/Json charge points
+        private final int wsCallTimeoutInSeconds;
+        private final int wsMaxPendingCallsPerSession;
+
+        // Admission of WebSocket handshakes
+        private final int wsHandshakeRatePerSecond;
+        private final int wsHandshakeRatePerAddressPerSecond;
+        private final int wsHandshakeMaxConcurrent;
+
+        // Write-behind ingestion of MeterValues
+        private final boolean meterValuesWriteBehindEnabled;
+        private final int meterValuesQueueSize;
+        private final int meterValuesBatchSize;
+        private final int meterValuesFlushIntervalInMillis;
     }
 
 }
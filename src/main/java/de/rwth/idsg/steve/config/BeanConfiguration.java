@@ -28,6 +28,7 @@ import de.rwth.idsg.steve.service.GithubReleaseCheckService;
 import de.rwth.idsg.steve.service.ReleaseCheckService;
 import de.rwth.idsg.steve.utils.DateTimeUtils;
 import de.rwth.idsg.steve.utils.InternetChecker;
+import de.rwth.idsg.steve.utils.VirtualThreads;
 import lombok.extern.slf4j.Slf4j;
 import org.jooq.DSLContext;
 import org.jooq.SQLDialect;
@@ -38,6 +39,7 @@ import org.jooq.impl.DefaultConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.Ordered;
@@ -74,6 +76,7 @@ public class BeanConfiguration implements WebMvcConfigurer {
 
     private HikariDataSource dataSource;
     private ScheduledThreadPoolExecutor executor;
+    private ExecutorService virtualExecutor;
 
     /**
      * https://github.com/brettwooldridge/HikariCP/wiki/MySQL-Configuration
@@ -97,6 +100,9 @@ public class BeanConfiguration implements WebMvcConfigurer {
         hc.addDataSourceProperty(PropertyKey.serverTimezone.getKeyName(), CONFIG.getTimeZoneId());
         hc.addDataSourceProperty(PropertyKey.useSSL.getKeyName(), true);
 
+        // respect the fetch size of a statement (e.g. CSV exports), instead of reading the whole result at once
+        hc.addDataSourceProperty(PropertyKey.useCursorFetch.getKeyName(), true);
+
         dataSource = new HikariDataSource(hc);
     }
 
@@ -134,7 +140,12 @@ public class BeanConfiguration implements WebMvcConfigurer {
         return DSL.using(conf);
     }
 
+    /**
+     * Primary, since the bean below might be the very same instance, and would otherwise be a second candidate
+     * for injection points of this type.
+     */
     @Bean
+    @Primary
     public ScheduledExecutorService scheduledExecutorService() {
         ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("SteVe-Executor-%d")
                                                                 .build();
@@ -143,6 +154,25 @@ public class BeanConfiguration implements WebMvcConfigurer {
         return executor;
     }
 
+    /**
+     * For one-off tasks that block on I/O (e.g. mails, outgoing SOAP calls, database updates), as opposed to the
+     * scheduled tasks (pings, timers) which stay on the small platform pool above.
+     *
+     * With virtual threads, every task gets its own thread, and the concurrency of blocking I/O is not capped by the
+     * size of a pool anymore. Without them, we share the pool of the scheduled executor, as before.
+     */
+    @Bean
+    public ExecutorService blockingTaskExecutor() {
+        VirtualThreads.warnIfUnavailable();
+
+        if (VirtualThreads.isEnabled()) {
+            virtualExecutor = VirtualThreads.newThreadPerTaskExecutor("SteVe-Virtual-");
+            return virtualExecutor;
+        } else {
+            return scheduledExecutorService();
+        }
+    }
+
     @Bean
     public Validator validator() {
         return new LocalValidatorFactoryBean();
@@ -174,6 +204,10 @@ public class BeanConfiguration implements WebMvcConfigurer {
             dataSource.close();
         }
 
+        if (virtualExecutor != null) {
+            gracefulShutDown(virtualExecutor);
+        }
+
         if (executor != null) {
             gracefulShutDown(executor);
         }
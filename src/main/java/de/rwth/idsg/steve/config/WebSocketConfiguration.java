@@ -20,6 +20,7 @@ package de.rwth.idsg.steve.config;
 
 import com.google.common.collect.Lists;
 import de.rwth.idsg.steve.ocpp.ws.AbstractWebSocketEndpoint;
+import de.rwth.idsg.steve.ocpp.ws.HandshakeAdmissionController;
 import de.rwth.idsg.steve.ocpp.ws.OcppWebSocketUpgrader;
 import de.rwth.idsg.steve.ocpp.ws.ocpp12.Ocpp12WebSocketEndpoint;
 import de.rwth.idsg.steve.ocpp.ws.ocpp15.Ocpp15WebSocketEndpoint;
@@ -50,6 +51,7 @@ public class WebSocketConfiguration implements WebSocketConfigurer {
 
     @Autowired private NotificationService notificationService;
     @Autowired private ChargePointHelperService chargePointHelperService;
+    @Autowired private HandshakeAdmissionController handshakeAdmissionController;
 
     @Autowired private Ocpp12WebSocketEndpoint ocpp12WebSocketEndpoint;
     @Autowired private Ocpp15WebSocketEndpoint ocpp15WebSocketEndpoint;
@@ -70,7 +72,7 @@ public class WebSocketConfiguration implements WebSocketConfigurer {
         String[] protocols = endpoints.stream().map(e -> e.getVersion().getValue()).toArray(String[]::new);
 
         OcppWebSocketUpgrader upgradeStrategy = new OcppWebSocketUpgrader(
-                policy, endpoints, notificationService, chargePointHelperService);
+                policy, endpoints, notificationService, chargePointHelperService, handshakeAdmissionController);
 
         DefaultHandshakeHandler handler = new DefaultHandshakeHandler(upgradeStrategy);
         handler.setSupportedProtocols(protocols);
@@ -29,6 +29,8 @@ import de.rwth.idsg.steve.ocpp.task.UnlockConnectorTask;
 import de.rwth.idsg.steve.ocpp.task.UpdateFirmwareTask;
 import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
 
+import java.util.List;
+
 /**
  * @author Sevket Goekay <goekay@dbis.rwth-aachen.de>
  * @since 20.03.2015
@@ -52,4 +54,9 @@ public interface ChargePointService12_Invoker {
     void remoteStartTransaction(ChargePointSelect cp, RemoteStartTransactionTask task);
 
     void remoteStopTransaction(ChargePointSelect cp, RemoteStopTransactionTask task);
+
+    /**
+     * Sends the same request of the task to all the given JSON stations (the SOAP ones are not supported)
+     */
+    void broadcast(List<ChargePointSelect> jsonList, CommunicationTask task);
 }
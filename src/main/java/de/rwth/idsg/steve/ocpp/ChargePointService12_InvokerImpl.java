@@ -38,6 +38,8 @@ import ocpp.cp._2010._08.ChargePointService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * @author Sevket Goekay <goekay@dbis.rwth-aachen.de>
  * @since 10.03.2018
@@ -135,6 +137,11 @@ public class ChargePointService12_InvokerImpl implements ChargePointService12_In
         }
     }
 
+    @Override
+    public void broadcast(List<ChargePointSelect> jsonList, CommunicationTask task) {
+        wsHelper.runPipeline(jsonList, task);
+    }
+
     private void runPipeline(ChargePointSelect cp, CommunicationTask task) {
         wsHelper.runPipeline(cp, task);
     }
@@ -44,6 +44,8 @@ import ocpp.cp._2012._06.ChargePointService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * @author Sevket Goekay <goekay@dbis.rwth-aachen.de>
  * @since 10.03.2018
@@ -196,6 +198,11 @@ public class ChargePointService15_InvokerImpl implements ChargePointService15_In
         }
     }
 
+    @Override
+    public void broadcast(List<ChargePointSelect> jsonList, CommunicationTask task) {
+        wsHelper.runPipeline(jsonList, task);
+    }
+
     private void runPipeline(ChargePointSelect cp, CommunicationTask task) {
         wsHelper.runPipeline(cp, task);
     }
@@ -30,6 +30,8 @@ import ocpp.cp._2015._10.ChargePointService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * @author Sevket Goekay <goekay@dbis.rwth-aachen.de>
  * @since 13.03.2018
@@ -218,6 +220,11 @@ public class ChargePointService16_InvokerImpl implements ChargePointService16_In
         }
     }
 
+    @Override
+    public void broadcast(List<ChargePointSelect> jsonList, CommunicationTask task) {
+        wsHelper.runPipeline(jsonList, task);
+    }
+
     private void runPipeline(ChargePointSelect cp, CommunicationTask task) {
         wsHelper.runPipeline(cp, task);
     }
@@ -19,13 +19,14 @@
 package de.rwth.idsg.steve.ocpp.ws;
 
 import com.google.common.base.Strings;
-import de.rwth.idsg.steve.config.WebSocketConfiguration;
 import de.rwth.idsg.steve.ocpp.OcppVersion;
 import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
 import de.rwth.idsg.steve.ocpp.ws.data.SessionContext;
 import de.rwth.idsg.steve.ocpp.ws.pipeline.IncomingPipeline;
-import de.rwth.idsg.steve.repository.OcppServerRepository;
+import de.rwth.idsg.steve.service.HeartbeatService;
 import de.rwth.idsg.steve.service.NotificationService;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
 import org.joda.time.DateTime;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.socket.BinaryMessage;
@@ -35,32 +36,32 @@ import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Deque;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.IntSupplier;
 
 /**
  * @author Sevket Goekay <goekay@dbis.rwth-aachen.de>
  * @since 17.03.2015
  */
+@Slf4j
 public abstract class AbstractWebSocketEndpoint extends ConcurrentWebSocketHandler {
 
-    @Autowired private ScheduledExecutorService service;
-    @Autowired private OcppServerRepository ocppServerRepository;
+    @Autowired private HeartbeatService heartbeatService;
     @Autowired private FutureResponseContextStore futureResponseContextStore;
     @Autowired private NotificationService notificationService;
+    @Autowired private IncomingMessageExecutor incomingMessageExecutor;
+    @Autowired private KeepaliveSweeper keepaliveSweeper;
+    @Autowired private IncomingRateLimiter incomingRateLimiter;
 
     public static final String CHARGEBOX_ID_KEY = "CHARGEBOX_ID_KEY";
 
     private final SessionContextStore sessionContextStore = new SessionContextStore();
     private final List<Consumer<String>> connectedCallbackList = new ArrayList<>();
     private final List<Consumer<String>> disconnectedCallbackList = new ArrayList<>();
-    private final Object sessionContextLock = new Object();
 
     private IncomingPipeline pipeline;
 
@@ -100,16 +101,70 @@ public abstract class AbstractWebSocketEndpoint extends ConcurrentWebSocketHandl
         }
 
         WebSocketLogger.receivedText(chargeBoxId, session, incomingString);
+        keepaliveSweeper.touch(session);
 
         CommunicationContext context = new CommunicationContext(session, chargeBoxId);
         context.setIncomingString(incomingString);
 
-        pipeline.accept(context);
+        // Null, if it is not a CALL
+        String action = pipeline.readCallAction(context);
+
+        if (isThrottled(context, action)) {
+            return;
+        }
+
+        IncomingPriority priority = IncomingPriority.of(action);
+        Runnable task = () -> process(context);
+
+        if (!incomingMessageExecutor.trySubmit(chargeBoxId, priority, task)) {
+            // The lane of this station is full. An incoming CALL is answered with an error right away. Responses to
+            // our own CALLs are queued nevertheless: Their number is bounded by what we sent, and someone is waiting.
+            boolean rejected = pipeline.rejectCall(context, ErrorFactory::serverBusy);
+            if (!rejected) {
+                incomingMessageExecutor.forceSubmit(chargeBoxId, priority, task);
+            }
+        }
+    }
+
+    /**
+     * Runs on the I/O thread, before the message takes a place in the lane of the station
+     */
+    private boolean isThrottled(CommunicationContext context, @Nullable String action) {
+        if (action == null || incomingRateLimiter.tryAcquire(context.getChargeBoxId(), action)) {
+            return false;
+        }
+
+        if (incomingRateLimiter.isDroppable(action)) {
+            log.debug("[chargeBoxId={}] Dropped '{}' over the rate limit", context.getChargeBoxId(), action);
+        } else {
+            pipeline.rejectCall(context, messageId -> ErrorFactory.rateLimited(messageId, action));
+        }
+        return true;
+    }
+
+    /**
+     * Runs in the lane of the station. Before the processing was asynchronous, an exception would propagate up to
+     * the WebSocket container and close the session. We keep it that way.
+     */
+    private void process(CommunicationContext context) {
+        try {
+            pipeline.accept(context);
+        } catch (Exception e) {
+            WebSocketSession session = context.getSession();
+            log.error("[chargeBoxId={}, sessionId={}] Processing of incoming message failed. Closing the session",
+                    context.getChargeBoxId(), session.getId(), e);
+            try {
+                session.close(CloseStatus.SERVER_ERROR);
+            } catch (IOException ex) {
+                log.warn("Could not close the session", ex);
+            }
+        }
     }
 
     private void handlePongMessage(WebSocketSession session) {
         WebSocketLogger.receivedPong(getChargeBoxId(session), session);
-        ocppServerRepository.updateChargeboxHeartbeat(getChargeBoxId(session), DateTime.now());
+        keepaliveSweeper.touch(session);
+        heartbeatService.update(getChargeBoxId(session), DateTime.now());
     }
 
     @Override
@@ -118,22 +173,10 @@ public abstract class AbstractWebSocketEndpoint extends ConcurrentWebSocketHandl
 
         WebSocketLogger.connected(chargeBoxId, session);
 
-        // Just to keep the connection alive, such that the servers do not close
-        // the connection because of a idle timeout, we ping-pong at fixed intervals.
-        ScheduledFuture pingSchedule = service.scheduleAtFixedRate(
-                new PingTask(chargeBoxId, session),
-                WebSocketConfiguration.PING_INTERVAL,
-                WebSocketConfiguration.PING_INTERVAL,
-                TimeUnit.MINUTES);
+        keepaliveSweeper.register(chargeBoxId, session);
+        IntSupplier pendingCalls = futureResponseContextStore.addSession(session);
 
-        futureResponseContextStore.addSession(session);
-
-        int sizeBeforeAdd;
-
-        synchronized (sessionContextLock) {
-            sizeBeforeAdd = sessionContextStore.getSize(chargeBoxId);
-            sessionContextStore.add(chargeBoxId, session, pingSchedule);
-        }
+        int sizeBeforeAdd = sessionContextStore.add(chargeBoxId, session, pendingCalls);
 
         // Take into account that there might be multiple connections to a charging station.
         // Send notification only for the change 0 -> 1.
@@ -148,14 +191,10 @@ public abstract class AbstractWebSocketEndpoint extends ConcurrentWebSocketHandl
 
         WebSocketLogger.closed(chargeBoxId, session, closeStatus);
 
+        keepaliveSweeper.unregister(session);
         futureResponseContextStore.removeSession(session);
 
-        int sizeAfterRemove;
-
-        synchronized (sessionContextLock) {
-            sessionContextStore.remove(chargeBoxId, session);
-            sizeAfterRemove = sessionContextStore.getSize(chargeBoxId);
-        }
+        int sizeAfterRemove = sessionContextStore.remove(chargeBoxId, session);
 
         // Take into account that there might be multiple connections to a charging station.
         // Send notification only for the change 1 -> 0.
@@ -198,7 +237,7 @@ public abstract class AbstractWebSocketEndpoint extends ConcurrentWebSocketHandl
         return sessionContextStore.getNumberOfChargeBoxes();
     }
 
-    public Map<String, Deque<SessionContext>> getACopy() {
+    public Map<String, List<SessionContext>> getACopy() {
         return sessionContextStore.getACopy();
     }
 
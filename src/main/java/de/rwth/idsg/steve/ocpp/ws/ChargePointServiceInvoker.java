@@ -31,7 +31,10 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
 
 /**
  * @author Sevket Goekay <goekay@dbis.rwth-aachen.de>
@@ -59,17 +62,57 @@ public class ChargePointServiceInvoker {
         }
     }
 
+    /**
+     * Same as {@link #runPipeline(ChargePointSelect, CommunicationTask)} for each station, but the request is
+     * serialized only once for all of them
+     */
+    public void runPipeline(List<ChargePointSelect> list, CommunicationTask task) {
+        List<CommunicationContext> contexts = new ArrayList<>(list.size());
+        try {
+            RequestType request = task.getRequest();
+            ActionResponsePair pair = findActionResponse(request);
+
+            for (ChargePointSelect cps : list) {
+                try {
+                    contexts.add(createContext(cps.getChargeBoxId(), task, request, pair));
+                } catch (Exception e) {
+                    failed(cps.getChargeBoxId(), task, e);
+                }
+            }
+        } catch (Exception e) {
+            // The request itself is the problem, so it fails for all stations
+            list.forEach(cps -> failed(cps.getChargeBoxId(), task, e));
+            return;
+        }
+
+        try {
+            outgoingCallPipeline.broadcast(contexts, (context, e) -> failed(context.getChargeBoxId(), task, e));
+        } catch (Exception e) {
+            // The payload could not be serialized, so none of the calls is sent
+            contexts.forEach(context -> failed(context.getChargeBoxId(), task, e));
+        }
+    }
+
     /**
      * Actual processing
      */
     private void run(String chargeBoxId, CommunicationTask task) {
         RequestType request = task.getRequest();
+        CommunicationContext context = createContext(chargeBoxId, task, request, findActionResponse(request));
+        outgoingCallPipeline.accept(context);
+    }
 
-        String messageId = UUID.randomUUID().toString();
+    private ActionResponsePair findActionResponse(RequestType request) {
         ActionResponsePair pair = typeStore.findActionResponse(request);
         if (pair == null) {
             throw new SteveException("Action name is not found");
         }
+        return pair;
+    }
+
+    private CommunicationContext createContext(String chargeBoxId, CommunicationTask task, RequestType request,
+                                               ActionResponsePair pair) {
+        String messageId = CONFIG.getOcpp().getWsMessageIdStrategy().nextMessageId();
 
         OcppJsonCall call = new OcppJsonCall();
         call.setMessageId(messageId);
@@ -81,7 +124,11 @@ public class ChargePointServiceInvoker {
         CommunicationContext context = new CommunicationContext(endpoint.getSession(chargeBoxId), chargeBoxId);
         context.setOutgoingMessage(call);
         context.setFutureResponseContext(frc);
+        return context;
+    }
 
-        outgoingCallPipeline.accept(context);
+    private void failed(String chargeBoxId, CommunicationTask task, Exception e) {
+        log.error("Exception occurred", e);
+        task.defaultCallback().failed(chargeBoxId, e);
     }
 }
@@ -56,6 +56,16 @@ public final class ErrorFactory {
                 "Internal services failed while processing of the payload", details);
     }
 
+    public static OcppJsonError serverBusy(String messageId) {
+        return setFields(messageId, ErrorCode.InternalError,
+                "Too many messages from this charge point are waiting to be processed. Try again later", null);
+    }
+
+    public static OcppJsonError rateLimited(String messageId, String action) {
+        return setFields(messageId, ErrorCode.GenericError,
+                "Too many '" + action + "' messages from this charge point. Try again later", null);
+    }
+
     private static OcppJsonError setFields(String messageId, ErrorCode code, String desc, String details) {
         OcppJsonError error = new OcppJsonError();
         error.setMessageId(messageId);
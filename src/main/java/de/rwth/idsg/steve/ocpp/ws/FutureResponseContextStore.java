@@ -18,21 +18,47 @@
  */
 package de.rwth.idsg.steve.ocpp.ws;
 
+import de.rwth.idsg.steve.SteveException;
+import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
 import de.rwth.idsg.steve.ocpp.ws.data.FutureResponseContext;
-import lombok.AccessLevel;
+import de.rwth.idsg.steve.ocpp.ws.pipeline.Sender;
+import de.rwth.idsg.steve.service.MetricsService;
+import de.rwth.idsg.steve.utils.HashedWheelTimer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.WebSocketSession;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.BiFunction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.IntSupplier;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
 
 /**
  * Presumption: The responses must be sent using the same connection as the requests!
  *
+ * OCPP-J allows only one call per connection to wait for a response. Therefore, the calls of a session are sent one
+ * after the other: A call is queued until the previous call is answered (or times out), and only then sent. The queue
+ * of a session is bounded, further calls fail right away.
+ *
+ * Every sent call has a deadline. If the response does not arrive in time, the context is removed and the task
+ * is informed about the failure. The deadlines of all calls are managed by one timer wheel. Whoever removes the
+ * context from the store first (the response or the timeout) wins, the other one finds nothing.
+ *
  * @author Sevket Goekay <goekay@dbis.rwth-aachen.de>
  * @since 21.03.2015
  */
@@ -40,52 +66,340 @@ import java.util.function.BiFunction;
 @Service
 public class FutureResponseContextStore {
 
-    // We store for each chargeBox connection, multiple pairs of (messageId, context)
-    // (session, (messageId, context))
-    private final Map<WebSocketSession, Map<String, FutureResponseContext>> lookupTable = new ConcurrentHashMap<>();
+    @Autowired private ScheduledExecutorService executorService;
+    @Autowired private MetricsService metricsService;
+
+    // (session, calls of the session)
+    private final Map<WebSocketSession, SessionCalls> lookupTable = new ConcurrentHashMap<>();
+
+    private final HashedWheelTimer timer = new HashedWheelTimer(1, TimeUnit.SECONDS, 512);
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+
+    private int callTimeoutInSeconds;
+
+    private LongAdder answeredCounter;
+    private LongAdder timedOutCounter;
+    private MetricsService.Timer queueTimer;
+
+    @PostConstruct
+    public void init() {
+        callTimeoutInSeconds = CONFIG.getOcpp().getWsCallTimeoutInSeconds();
+        timer.start(executorService);
+
+        answeredCounter = metricsService.counter("ocpp.ws.outgoing.answered");
+        timedOutCounter = metricsService.counter("ocpp.ws.outgoing.timedOut");
+        queueTimer = metricsService.timer("ocpp.ws.outgoing.queueTime");
+        metricsService.registerGauge("ocpp.ws.outgoing.pending", pendingCount::get);
+        metricsService.registerGauge("ocpp.ws.outgoing.queued", queuedCount::get);
+        metricsService.registerGauge("ocpp.ws.outgoing.timeoutRate", this::getTimeoutRate);
+    }
 
-    public void addSession(WebSocketSession session) {
-        addIfAbsent(session);
+    @PreDestroy
+    public void destroy() {
+        timer.stop();
     }
 
+    /**
+     * @return the number of calls of the session that are sent or queued, which can be read without locking (e.g. to
+     *         select the least busy session of a charge point)
+     */
+    public IntSupplier addSession(WebSocketSession session) {
+        SessionCalls calls = addIfAbsent(session);
+        return () -> calls.size;
+    }
+
+    /**
+     * The responses for the remaining calls cannot arrive anymore (see presumption above), and the queued calls cannot
+     * be sent anymore. Let the tasks know.
+     */
     public void removeSession(WebSocketSession session) {
         log.debug("Deleting the store for sessionId '{}'", session.getId());
-        lookupTable.remove(session);
+        SessionCalls calls = lookupTable.remove(session);
+        if (calls == null) {
+            return;
+        }
+
+        List<CommunicationContext> remaining = new ArrayList<>();
+        synchronized (calls) {
+            // A concurrent submit might have got the calls from the table just before the removal
+            calls.closed = true;
+            if (calls.inFlight != null) {
+                remaining.add(calls.inFlight);
+                calls.inFlight = null;
+                pendingCount.decrementAndGet();
+            }
+            for (QueuedCall queued : calls.queue) {
+                remaining.add(queued.context);
+            }
+            queuedCount.addAndGet(-calls.queue.size());
+            calls.queue.clear();
+            calls.updateSize();
+        }
+
+        String chargeBoxId = getChargeBoxId(session);
+        for (CommunicationContext remainingContext : remaining) {
+            FutureResponseContext context = remainingContext.getFutureResponseContext();
+            cancelTimeout(context);
+            context.getTask()
+                   .defaultCallback()
+                   .failed(chargeBoxId, new SteveException("The connection was closed before a response arrived"));
+        }
     }
 
-    public void add(WebSocketSession session, String messageId, FutureResponseContext context) {
-        Map<String, FutureResponseContext> map = addIfAbsent(session);
-        map.put(messageId, context);
-        log.debug("Store size for sessionId '{}': {}", session.getId(), map.size());
+    /**
+     * Sends the call right away, if no other call of the session is waiting for a response. Otherwise, the call is
+     * queued, and sent as soon as it is its turn.
+     *
+     * @throws SteveException if the session is closed, has too many calls queued already, or the call could not be
+     *                        sent
+     */
+    public void submit(CommunicationContext context) {
+        int maxPendingCalls = CONFIG.getOcpp().getWsMaxPendingCallsPerSession();
+
+        SessionCalls calls = getCalls(context.getSession());
+        boolean sendNow;
+        synchronized (calls) {
+            sendNow = enqueue(calls, context, maxPendingCalls);
+        }
+
+        if (sendNow) {
+            send(context);
+        }
     }
 
+    /**
+     * Same as {@link #submit(CommunicationContext)}, but for the calls of a broadcast in one go. A station with too
+     * many queued calls does not fail the whole batch: Its call is refused individually.
+     */
+    public void submitAll(List<CommunicationContext> contexts, BiConsumer<CommunicationContext, Exception> onFailure) {
+        int maxPendingCalls = CONFIG.getOcpp().getWsMaxPendingCallsPerSession();
+
+        List<CommunicationContext> sendNow = new ArrayList<>(contexts.size());
+        for (CommunicationContext context : contexts) {
+            try {
+                SessionCalls calls = getCalls(context.getSession());
+                synchronized (calls) {
+                    if (enqueue(calls, context, maxPendingCalls)) {
+                        sendNow.add(context);
+                    }
+                }
+            } catch (SteveException e) {
+                onFailure.accept(context, e);
+            }
+        }
+
+        for (CommunicationContext context : sendNow) {
+            try {
+                send(context);
+            } catch (RuntimeException e) {
+                onFailure.accept(context, e);
+            }
+        }
+    }
+
+    /**
+     * For the response of a call. The next queued call of the session is sent.
+     */
     @Nullable
     public FutureResponseContext get(WebSocketSession session, String messageId) {
-        RemoveFunction removeFunction = new RemoveFunction(messageId);
-        lookupTable.computeIfPresent(session, removeFunction);
-        return removeFunction.removedContext;
+        FutureResponseContext removedContext = release(session, messageId);
+        if (removedContext != null) {
+            answeredCounter.increment();
+        }
+        return removedContext;
     }
 
-    private Map<String, FutureResponseContext> addIfAbsent(WebSocketSession session) {
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private SessionCalls addIfAbsent(WebSocketSession session) {
         return lookupTable.computeIfAbsent(session, innerSession -> {
             log.debug("Creating new store for sessionId '{}'", innerSession.getId());
-            return new ConcurrentHashMap<>();
+            return new SessionCalls();
         });
     }
 
-    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
-    private static class RemoveFunction implements
-            BiFunction<WebSocketSession, Map<String, FutureResponseContext>, Map<String, FutureResponseContext>> {
+    /**
+     * The calls are registered when the session opens. We do not create them here, since nobody would clean them up
+     * for a session that is closed already.
+     */
+    private SessionCalls getCalls(WebSocketSession session) {
+        SessionCalls calls = lookupTable.get(session);
+        if (calls == null) {
+            throw new SteveException("The connection is closed");
+        }
+        return calls;
+    }
 
-        private final String messageId;
-        @Nullable private FutureResponseContext removedContext;
+    /**
+     * Must be called while holding the lock of the calls.
+     *
+     * @return true, if the call can be sent right away
+     * @throws SteveException if the session is closed, or has too many calls queued already
+     */
+    private boolean enqueue(SessionCalls calls, CommunicationContext context, int maxPendingCalls) {
+        if (calls.closed) {
+            throw new SteveException("The connection is closed");
+        }
+        if (calls.size >= maxPendingCalls) {
+            throw new SteveException("The charge point has already %s calls waiting to be answered", maxPendingCalls);
+        }
 
-        @Override
-        public Map<String, FutureResponseContext> apply(WebSocketSession session,
-                                                        Map<String, FutureResponseContext> map) {
-            removedContext = map.remove(messageId);
-            log.debug("Store size for sessionId '{}': {}", session.getId(), map.size());
-            return map;
+        if (calls.inFlight == null) {
+            calls.inFlight = context;
+            calls.updateSize();
+            pendingCount.incrementAndGet();
+            queueTimer.record(0);
+            return true;
         }
+
+        calls.queue.add(new QueuedCall(context, System.nanoTime()));
+        calls.updateSize();
+        queuedCount.incrementAndGet();
+        log.debug("Queued calls for sessionId '{}': {}", context.getSession().getId(), calls.queue.size());
+        return false;
+    }
+
+    /**
+     * Must be called while holding the lock of the calls.
+     *
+     * @return the call that is in flight now, or null if the queue is empty
+     */
+    @Nullable
+    private CommunicationContext pollNext(SessionCalls calls) {
+        QueuedCall next = calls.queue.poll();
+        if (next == null) {
+            return null;
+        }
+
+        queuedCount.decrementAndGet();
+        queueTimer.record(System.nanoTime() - next.queuedAt);
+
+        calls.inFlight = next.context;
+        pendingCount.incrementAndGet();
+        return next.context;
+    }
+
+    /**
+     * The call must be in flight already. If it cannot be sent, it is removed such that the next call can go.
+     *
+     * @throws RuntimeException if the call could not be sent, and the task is not informed about it yet
+     */
+    private void send(CommunicationContext context) {
+        WebSocketSession session = context.getSession();
+        String messageId = context.getOutgoingMessage().getMessageId();
+
+        // The timer thread must stay responsive, so the expiry (which might send the next call) runs elsewhere
+        context.getFutureResponseContext().setTimeout(timer.newTimeout(
+                () -> executorService.execute(() -> expire(session, messageId)),
+                callTimeoutInSeconds,
+                TimeUnit.SECONDS
+        ));
+
+        try {
+            Sender.INSTANCE.accept(context);
+        } catch (RuntimeException e) {
+            // The call is not sent, so there will be no response. If the context is gone already, the closing of
+            // the session came first and informed the task.
+            if (release(session, messageId) != null) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Removes the call, if it is the one in flight, and sends the next queued call of the session
+     */
+    @Nullable
+    private FutureResponseContext release(WebSocketSession session, String messageId) {
+        SessionCalls calls = lookupTable.get(session);
+        if (calls == null) {
+            return null;
+        }
+
+        CommunicationContext released;
+        CommunicationContext next;
+        synchronized (calls) {
+            released = calls.inFlight;
+            if (released == null || !messageId.equals(released.getOutgoingMessage().getMessageId())) {
+                return null;
+            }
+            calls.inFlight = null;
+            pendingCount.decrementAndGet();
+            next = pollNext(calls);
+            calls.updateSize();
+        }
+
+        FutureResponseContext removedContext = released.getFutureResponseContext();
+        cancelTimeout(removedContext);
+
+        if (next != null) {
+            try {
+                send(next);
+            } catch (RuntimeException e) {
+                log.error("Could not send the queued call", e);
+                next.getFutureResponseContext().getTask().defaultCallback().failed(next.getChargeBoxId(), e);
+            }
+        }
+        return removedContext;
+    }
+
+    private void expire(WebSocketSession session, String messageId) {
+        FutureResponseContext context = release(session, messageId);
+        if (context == null) {
+            // the response or the closing of the session came first
+            return;
+        }
+
+        timedOutCounter.increment();
+
+        String chargeBoxId = getChargeBoxId(session);
+        log.warn("[chargeBoxId={}, sessionId={}] No response received for the call with messageId '{}'",
+                chargeBoxId, session.getId(), messageId);
+
+        context.getTask()
+               .defaultCallback()
+               .failed(chargeBoxId, new SteveException("No response received within %s seconds",
+                       callTimeoutInSeconds));
+    }
+
+    private static void cancelTimeout(FutureResponseContext context) {
+        HashedWheelTimer.Timeout timeout = context.getTimeout();
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    private static String getChargeBoxId(WebSocketSession session) {
+        return (String) session.getAttributes().get(AbstractWebSocketEndpoint.CHARGEBOX_ID_KEY);
+    }
+
+    private double getTimeoutRate() {
+        long timedOut = timedOutCounter.sum();
+        long total = timedOut + answeredCounter.sum();
+        return (total == 0) ? 0 : (double) timedOut / total;
+    }
+
+    /**
+     * The calls of one session. Guarded by its own lock, apart from the size that can be read without it.
+     */
+    private static class SessionCalls {
+        // The call that is sent and waits for a response, if any
+        @Nullable private CommunicationContext inFlight;
+        private final Deque<QueuedCall> queue = new ArrayDeque<>();
+        private volatile int size;
+        private boolean closed;
+
+        private void updateSize() {
+            size = (inFlight == null ? 0 : 1) + queue.size();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class QueuedCall {
+        private final CommunicationContext context;
+        private final long queuedAt;
     }
 }
@@ -0,0 +1,166 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import de.rwth.idsg.steve.service.MetricsService;
+import de.rwth.idsg.steve.utils.TokenBucket;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * After a site-wide outage, all stations reconnect at the same time, and each handshake is followed by a
+ * BootNotification and a StatusNotification per connector. Instead of accepting every handshake as fast as Jetty
+ * delivers it, we admit them at a configured rate (globally and per source IP) and limit the number of handshakes
+ * that are in progress at the same time. The rejected stations are told when to retry.
+ *
+ * A limit with the value 0 is disabled.
+ *
+ * @since 18.10.2026
+ */
+@Component
+public class HandshakeAdmissionController {
+
+    private static final int MAX_TRACKED_ADDRESSES = 100_000;
+    private static final long RETRY_AFTER_BUSY_SECONDS = 1;
+
+    private final int ratePerSecond = CONFIG.getOcpp().getWsHandshakeRatePerSecond();
+    private final int ratePerAddressPerSecond = CONFIG.getOcpp().getWsHandshakeRatePerAddressPerSecond();
+    private final int maxConcurrent = CONFIG.getOcpp().getWsHandshakeMaxConcurrent();
+
+    @Autowired private MetricsService metricsService;
+
+    // The buckets hold at most one second worth of tokens, such that the burst after an idle period is as large as
+    // the rate
+    @Nullable private final TokenBucket globalBucket =
+            (ratePerSecond > 0) ? new TokenBucket(ratePerSecond, ratePerSecond) : null;
+    @Nullable private final Semaphore inProgress = (maxConcurrent > 0) ? new Semaphore(maxConcurrent) : null;
+
+    // An address that did not connect for a while starts with a full bucket again
+    private final Cache<String, TokenBucket> addressBuckets = CacheBuilder.newBuilder()
+                                                                          .maximumSize(MAX_TRACKED_ADDRESSES)
+                                                                          .expireAfterAccess(1, TimeUnit.MINUTES)
+                                                                          .build();
+
+    private LongAdder admittedCounter;
+    private LongAdder rejectedRateCounter;
+    private LongAdder rejectedAddressRateCounter;
+    private LongAdder rejectedBusyCounter;
+
+    @PostConstruct
+    public void init() {
+        admittedCounter = metricsService.counter("ws.handshake.admitted");
+        rejectedRateCounter = metricsService.counter("ws.handshake.rejected.rate");
+        rejectedAddressRateCounter = metricsService.counter("ws.handshake.rejected.addressRate");
+        rejectedBusyCounter = metricsService.counter("ws.handshake.rejected.busy");
+
+        if (inProgress != null) {
+            metricsService.registerGauge("ws.handshake.inProgress",
+                    () -> maxConcurrent - inProgress.availablePermits());
+        }
+    }
+
+    /**
+     * If admitted, the caller must call {@link #release()} when the handshake is finished (successfully or not).
+     *
+     * @param address of the sender. Can be null, if unknown, then only the global limits apply
+     */
+    public Admission tryAdmit(@Nullable String address) {
+        long now = System.nanoTime();
+
+        if (ratePerAddressPerSecond > 0 && address != null) {
+            long waitNanos = getAddressBucket(address).tryAcquire(now);
+            if (waitNanos > 0) {
+                rejectedAddressRateCounter.increment();
+                return Admission.rejected(toRetryAfterSeconds(waitNanos));
+            }
+        }
+
+        if (globalBucket != null) {
+            long waitNanos = globalBucket.tryAcquire(now);
+            if (waitNanos > 0) {
+                rejectedRateCounter.increment();
+                return Admission.rejected(toRetryAfterSeconds(waitNanos));
+            }
+        }
+
+        if (inProgress != null && !inProgress.tryAcquire()) {
+            rejectedBusyCounter.increment();
+            return Admission.rejected(RETRY_AFTER_BUSY_SECONDS);
+        }
+
+        admittedCounter.increment();
+        return Admission.ADMITTED;
+    }
+
+    public void release() {
+        if (inProgress != null) {
+            inProgress.release();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private TokenBucket getAddressBucket(String address) {
+        try {
+            return addressBuckets.get(address,
+                    () -> new TokenBucket(ratePerAddressPerSecond, ratePerAddressPerSecond));
+        } catch (ExecutionException e) {
+            // creating a token bucket cannot fail
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long toRetryAfterSeconds(long waitNanos) {
+        long nanosPerSecond = TimeUnit.SECONDS.toNanos(1);
+        return Math.max(1, (waitNanos + nanosPerSecond - 1) / nanosPerSecond);
+    }
+
+    // -------------------------------------------------------------------------
+    // Class declarations
+    // -------------------------------------------------------------------------
+
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static final class Admission {
+        private static final Admission ADMITTED = new Admission(true, 0);
+
+        private final boolean admitted;
+        private final long retryAfterSeconds;
+
+        private static Admission rejected(long retryAfterSeconds) {
+            return new Admission(false, retryAfterSeconds);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.rwth.idsg.steve.service.MetricsService;
+import de.rwth.idsg.steve.utils.VirtualThreads;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Moves the processing of incoming WebSocket messages away from the I/O threads of the server, such that a slow
+ * database round trip for one charge point does not stall the other connections that share the same thread.
+ *
+ * Every chargeBoxId gets a serial lane: The messages of a station are processed one after another in the order of
+ * their arrival (FIFO), whereas the lanes of different stations are processed in parallel by a shared worker pool.
+ * A lane only exists while it has work to do. The number of waiting messages per lane is bounded.
+ *
+ * The lanes wait for a worker in the order of their {@link IncomingPriority}, and in the order of their arrival
+ * within the same priority. The priority of a lane is the highest priority of its waiting messages: A StartTransaction
+ * that arrives behind a MeterValues backlog takes the backlog with it, since the messages of a station are never
+ * reordered. With virtual threads, every lane gets a thread right away and there is nothing to prioritize.
+ *
+ * @since 18.10.2026
+ */
+@Slf4j
+@Component
+public class IncomingMessageExecutor {
+
+    /**
+     * After processing so many messages in a row, a lane goes back to the worker queue. This way a busy station
+     * cannot occupy a worker forever, while other lanes are waiting.
+     */
+    private static final int MAX_MESSAGES_PER_RUN = 32;
+
+    private static final IncomingPriority[] PRIORITIES = IncomingPriority.values();
+
+    @Autowired private MetricsService metricsService;
+
+    private final ConcurrentHashMap<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+
+    // For the FIFO order of the lanes with the same priority
+    private final AtomicLong runSequence = new AtomicLong();
+
+    private int maxLaneSize;
+    private ExecutorService workers;
+
+    private LongAdder rejectedCounter;
+    private MetricsService.Timer waitTimer;
+    private final Map<IncomingPriority, MetricsService.Timer> priorityWaitTimers =
+            new EnumMap<>(IncomingPriority.class);
+
+    @PostConstruct
+    public void init() {
+        maxLaneSize = CONFIG.getOcpp().getWsIncomingQueueSize();
+
+        if (VirtualThreads.isEnabled()) {
+            // A lane occupies a virtual thread only while it has work, so the number of stations that are processed
+            // in parallel is not capped by a pool size anymore (but still by the database connection pool)
+            workers = VirtualThreads.newThreadPerTaskExecutor("SteVe-Incoming-");
+        } else {
+            ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("SteVe-Incoming-%d")
+                                                                    .build();
+
+            // The work queue of this pool cannot grow without limit, since it contains at most one entry per lane
+            // and priority. The entries are LaneRuns, which are ordered by priority.
+            int threads = CONFIG.getOcpp().getWsIncomingThreads();
+            workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new PriorityBlockingQueue<>(), threadFactory);
+        }
+
+        metricsService.registerGauge("ocpp.ws.incoming.queued", queuedCount::get);
+        metricsService.registerGauge("ocpp.ws.incoming.activeLanes", lanes::size);
+        metricsService.registerGauge("ocpp.ws.incoming.maxLaneDepth", this::getMaxLaneDepth);
+        rejectedCounter = metricsService.counter("ocpp.ws.incoming.rejected");
+        waitTimer = metricsService.timer("ocpp.ws.incoming.waitTime");
+        for (IncomingPriority priority : PRIORITIES) {
+            priorityWaitTimers.put(priority, metricsService.timer("ocpp.ws.incoming.waitTime." + priority));
+        }
+    }
+
+    @PreDestroy
+    public void shutDown() {
+        try {
+            workers.shutdown();
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            log.error("Termination interrupted", e);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * @return false, if the lane of the station is full and the task was not accepted
+     */
+    public boolean trySubmit(String chargeBoxId, IncomingPriority priority, Runnable task) {
+        boolean accepted = submit(chargeBoxId, priority, task, maxLaneSize);
+        if (!accepted) {
+            rejectedCounter.increment();
+        }
+        return accepted;
+    }
+
+    /**
+     * Ignores the size limit of the lane. Only for messages that we cannot reject.
+     */
+    public void forceSubmit(String chargeBoxId, IncomingPriority priority, Runnable task) {
+        submit(chargeBoxId, priority, task, Integer.MAX_VALUE);
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private boolean submit(String chargeBoxId, IncomingPriority priority, Runnable task, int limit) {
+        QueuedTask queuedTask = new QueuedTask(task, priority, System.nanoTime());
+
+        while (true) {
+            Lane lane = lanes.computeIfAbsent(chargeBoxId, Lane::new);
+            switch (lane.offer(queuedTask, limit)) {
+                case ACCEPTED:
+                    return true;
+                case FULL:
+                    return false;
+                case RETIRED:
+                    // The lane became empty and was removed from the map just now. Try again with a fresh one.
+                    continue;
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+    }
+
+    private int getMaxLaneDepth() {
+        int max = 0;
+        for (Lane lane : lanes.values()) {
+            max = Math.max(max, lane.size());
+        }
+        return max;
+    }
+
+    private enum OfferResult {
+        ACCEPTED, FULL, RETIRED
+    }
+
+    @RequiredArgsConstructor
+    private static class QueuedTask {
+        private final Runnable runnable;
+        private final IncomingPriority priority;
+        private final long enqueuedAt;
+    }
+
+    /**
+     * An entry of the worker queue. When the priority of a waiting lane rises, the lane is queued again with a new
+     * run, and the old one does nothing when its turn comes.
+     */
+    @RequiredArgsConstructor
+    private static class LaneRun implements Runnable, Comparable<LaneRun> {
+        private final Lane lane;
+        private final IncomingPriority priority;
+        private final long sequence;
+
+        @Override
+        public void run() {
+            lane.run(this);
+        }
+
+        @Override
+        public int compareTo(LaneRun other) {
+            int c = priority.compareTo(other.priority);
+            return (c != 0) ? c : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private class Lane {
+        private final String chargeBoxId;
+
+        // All fields below are guarded by "this"
+        private final ArrayDeque<QueuedTask> queue = new ArrayDeque<>();
+        private final int[] queuedPerPriority = new int[PRIORITIES.length];
+
+        // The run that is waiting in the worker queue, if any
+        private LaneRun queuedRun;
+        private boolean running;
+
+        // A retired lane is not in the map anymore and does not accept new tasks. Otherwise, a task might end up in
+        // a lane that is not reachable, while the next task of the same station runs in parallel in a new lane.
+        private boolean retired;
+
+        private synchronized OfferResult offer(QueuedTask task, int limit) {
+            if (retired) {
+                return OfferResult.RETIRED;
+            }
+            if (queue.size() >= limit) {
+                return OfferResult.FULL;
+            }
+
+            queue.add(task);
+            queuedPerPriority[task.priority.ordinal()]++;
+            queuedCount.incrementAndGet();
+
+            // A running lane queues itself again with the right priority, when it is done
+            if (!running) {
+                if (queuedRun == null || task.priority.isHigherThan(queuedRun.priority)) {
+                    schedule(task.priority);
+                }
+            }
+            return OfferResult.ACCEPTED;
+        }
+
+        private synchronized int size() {
+            return queue.size();
+        }
+
+        /**
+         * Must be called while holding the lock
+         */
+        private void schedule(IncomingPriority priority) {
+            queuedRun = new LaneRun(this, priority, runSequence.incrementAndGet());
+            workers.execute(queuedRun);
+        }
+
+        private synchronized boolean start(LaneRun run) {
+            if (queuedRun != run) {
+                // Replaced by a run with a higher priority
+                return false;
+            }
+            queuedRun = null;
+            running = true;
+            return true;
+        }
+
+        private synchronized QueuedTask poll() {
+            QueuedTask task = queue.poll();
+            if (task == null) {
+                running = false;
+                retired = true;
+                lanes.remove(chargeBoxId, this);
+            } else {
+                queuedPerPriority[task.priority.ordinal()]--;
+            }
+            return task;
+        }
+
+        /**
+         * Gives the other lanes a chance and continues later
+         */
+        private synchronized void requeue() {
+            running = false;
+            schedule(getHighestQueuedPriority());
+        }
+
+        /**
+         * Must be called while holding the lock
+         */
+        private IncomingPriority getHighestQueuedPriority() {
+            for (IncomingPriority priority : PRIORITIES) {
+                if (queuedPerPriority[priority.ordinal()] > 0) {
+                    return priority;
+                }
+            }
+            // The queue is empty. The next run will retire the lane.
+            return PRIORITIES[PRIORITIES.length - 1];
+        }
+
+        private void run(LaneRun run) {
+            if (!start(run)) {
+                return;
+            }
+
+            for (int i = 0; i < MAX_MESSAGES_PER_RUN; i++) {
+                QueuedTask task = poll();
+                if (task == null) {
+                    return;
+                }
+
+                queuedCount.decrementAndGet();
+                long waitNanos = System.nanoTime() - task.enqueuedAt;
+                waitTimer.record(waitNanos);
+                priorityWaitTimers.get(task.priority).record(waitNanos);
+
+                try {
+                    task.runnable.run();
+                } catch (Exception e) {
+                    log.error("[chargeBoxId={}] Exception occurred while processing incoming message", chargeBoxId, e);
+                }
+            }
+
+            requeue();
+        }
+    }
+}
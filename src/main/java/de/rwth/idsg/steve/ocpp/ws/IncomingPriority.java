@@ -0,0 +1,59 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+
+/**
+ * The priority classes of incoming messages, the most urgent first. A driver waiting at the plug for Authorize or
+ * StartTransaction should not wait for the telemetry backlog of other stations.
+ *
+ * @since 18.10.2026
+ */
+public enum IncomingPriority {
+    TRANSACTION,
+    STATUS,
+    BULK;
+
+    // Key = action name, as used by the type stores
+    private static final Map<String, IncomingPriority> ACTIONS = Map.of(
+            "Authorize", TRANSACTION,
+            "StartTransaction", TRANSACTION,
+            "StopTransaction", TRANSACTION,
+            "MeterValues", BULK,
+            "DataTransfer", BULK
+    );
+
+    /**
+     * @param action of the incoming CALL. Null for the responses to our own CALLs, which someone is waiting for,
+     *               and therefore get the same priority as the status messages.
+     */
+    public static IncomingPriority of(@Nullable String action) {
+        if (action == null) {
+            return STATUS;
+        }
+        return ACTIONS.getOrDefault(action, STATUS);
+    }
+
+    public boolean isHigherThan(IncomingPriority other) {
+        return ordinal() < other.ordinal();
+    }
+}
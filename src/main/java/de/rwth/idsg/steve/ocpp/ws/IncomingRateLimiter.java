@@ -0,0 +1,196 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import de.rwth.idsg.steve.service.MetricsService;
+import de.rwth.idsg.steve.utils.DateTimeUtils;
+import de.rwth.idsg.steve.utils.TokenBucket;
+import de.rwth.idsg.steve.web.dto.ThrottledStation;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.joda.time.DateTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * A station with a misbehaving firmware can send some actions (e.g. MeterValues or StatusNotification) several
+ * times per second, and each of them ends up in the database. We limit the incoming CALLs per station and action,
+ * such that one station cannot degrade the ingestion for all others. The limits are configured per action, the
+ * actions without a limit are not affected.
+ *
+ * Over the limit, a CALL is answered with a CallError. The CALLs of the droppable actions are not answered at all:
+ * Their next CALL supersedes them anyway, and since the station has to wait for the response (or the timeout) before
+ * it sends the next CALL, this slows it down. A StatusNotification is not droppable, although it is sent repeatedly as
+ * well: It carries the state of one connector only, so the next one does not necessarily supersede it. With the
+ * CallError, the station at least knows that the state did not arrive.
+ *
+ * @since 18.10.2026
+ */
+@Component
+public class IncomingRateLimiter {
+
+    private static final Set<String> DROPPABLE_ACTIONS = Set.of("Heartbeat");
+
+    private static final int MAX_SIZE = 100_000;
+    private static final long SHOW_THROTTLED_MINUTES = 10;
+
+    /**
+     * The burst that is allowed after an idle period is 10 seconds worth of the rate. For example, a station with
+     * several connectors sends a StatusNotification per connector right after the boot.
+     */
+    private static final int BURST_SECONDS = 10;
+
+    @Autowired private MetricsService metricsService;
+
+    // Key = action, value = limit per minute
+    private final Map<String, Integer> limits = CONFIG.getOcpp().getWsIncomingRateLimitsPerMinute();
+
+    // A station that did not send the action for a while starts with a full bucket again
+    private final Cache<Key, Bucket> buckets = CacheBuilder.newBuilder()
+                                                           .maximumSize(MAX_SIZE)
+                                                           .expireAfterAccess(SHOW_THROTTLED_MINUTES, TimeUnit.MINUTES)
+                                                           .build();
+
+    private LongAdder rejectedCounter;
+    private LongAdder droppedCounter;
+
+    @PostConstruct
+    public void init() {
+        rejectedCounter = metricsService.counter("ocpp.ws.incoming.throttled.rejected");
+        droppedCounter = metricsService.counter("ocpp.ws.incoming.throttled.dropped");
+    }
+
+    /**
+     * @return true, if the CALL can be processed
+     */
+    public boolean tryAcquire(String chargeBoxId, String action) {
+        Integer limit = limits.get(action);
+        if (limit == null) {
+            return true;
+        }
+
+        Bucket bucket = getBucket(new Key(chargeBoxId, action), limit);
+        if (bucket.tryAcquire()) {
+            return true;
+        }
+
+        if (isDroppable(action)) {
+            droppedCounter.increment();
+        } else {
+            rejectedCounter.increment();
+        }
+        return false;
+    }
+
+    public boolean isDroppable(String action) {
+        return DROPPABLE_ACTIONS.contains(action);
+    }
+
+    /**
+     * @return the stations that were throttled recently, the most recent first
+     */
+    public List<ThrottledStation> getThrottledStations() {
+        DateTime since = DateTime.now().minusMinutes(SHOW_THROTTLED_MINUTES);
+
+        return buckets.asMap()
+                      .entrySet()
+                      .stream()
+                      .filter(e -> e.getValue().wasThrottledAfter(since))
+                      .map(e -> e.getValue().toDto(e.getKey()))
+                      .sorted(Comparator.comparing(ThrottledStation::getLastThrottledDT).reversed())
+                      .collect(Collectors.toList());
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private Bucket getBucket(Key key, int limitPerMinute) {
+        try {
+            return buckets.get(key, () -> new Bucket(limitPerMinute));
+        } catch (ExecutionException e) {
+            // the constructor of the bucket does not throw
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class Key {
+        private final String chargeBoxId;
+        private final String action;
+    }
+
+    private static final class Bucket {
+        private final int limitPerMinute;
+        private final TokenBucket tokenBucket;
+
+        // Guarded by "this"
+        private long throttledCount;
+        private DateTime lastThrottled;
+
+        private Bucket(int limitPerMinute) {
+            this.limitPerMinute = limitPerMinute;
+
+            double ratePerSecond = limitPerMinute / 60.0;
+            this.tokenBucket = new TokenBucket(ratePerSecond, Math.max(1, ratePerSecond * BURST_SECONDS));
+        }
+
+        private boolean tryAcquire() {
+            if (tokenBucket.tryAcquire(System.nanoTime()) == 0) {
+                return true;
+            }
+
+            synchronized (this) {
+                throttledCount++;
+                lastThrottled = DateTime.now();
+            }
+            return false;
+        }
+
+        private synchronized boolean wasThrottledAfter(DateTime since) {
+            return lastThrottled != null && lastThrottled.isAfter(since);
+        }
+
+        private synchronized ThrottledStation toDto(Key key) {
+            return ThrottledStation.builder()
+                                   .chargeBoxId(key.chargeBoxId)
+                                   .action(key.action)
+                                   .limitPerMinute(limitPerMinute)
+                                   .throttledCount(throttledCount)
+                                   .lastThrottled(DateTimeUtils.humanize(lastThrottled))
+                                   .lastThrottledDT(lastThrottled)
+                                   .build();
+        }
+    }
+}
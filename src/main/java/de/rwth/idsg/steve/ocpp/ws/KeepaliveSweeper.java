@@ -0,0 +1,180 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import de.rwth.idsg.steve.config.WebSocketConfiguration;
+import de.rwth.idsg.steve.service.MetricsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Just to keep the connections alive, such that the servers do not close them because of an idle timeout, we
+ * ping-pong at fixed intervals. Instead of one scheduled task per session, there is one sweep per second that walks
+ * a slice of the sessions. Every session is assigned to a random slice when it opens, which spreads the pings of
+ * stations that connected at the same moment over the whole interval.
+ *
+ * We also keep track of when we last heard from a session. A session that did not answer the last
+ * {@link #MAX_MISSED_PINGS} pings is considered dead (e.g. a half-open TCP connection) and closed, instead of
+ * lingering until the idle timeout.
+ *
+ * @since 18.10.2026
+ */
+@Slf4j
+@Component
+public class KeepaliveSweeper {
+
+    private static final long SLICE_DURATION_MILLIS = 1_000;
+    private static final int MAX_MISSED_PINGS = 2;
+
+    private static final long PING_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(WebSocketConfiguration.PING_INTERVAL);
+    private static final int SLICE_COUNT =
+            (int) (TimeUnit.MINUTES.toMillis(WebSocketConfiguration.PING_INTERVAL) / SLICE_DURATION_MILLIS);
+
+    @Autowired private ScheduledExecutorService executorService;
+    @Autowired private MetricsService metricsService;
+
+    // Key = session id
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<Entry>[] slices = createSlices();
+
+    // Only accessed by the sweep
+    private int currentSlice;
+
+    private ScheduledFuture<?> sweepSchedule;
+    private LongAdder pingCounter;
+    private LongAdder deadCounter;
+
+    @PostConstruct
+    public void init() {
+        pingCounter = metricsService.counter("ocpp.ws.keepalive.pings");
+        deadCounter = metricsService.counter("ocpp.ws.keepalive.deadSessionsClosed");
+        metricsService.registerGauge("ocpp.ws.keepalive.sessions", entries::size);
+
+        sweepSchedule = executorService.scheduleAtFixedRate(
+                this::sweep, SLICE_DURATION_MILLIS, SLICE_DURATION_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (sweepSchedule != null) {
+            sweepSchedule.cancel(false);
+        }
+    }
+
+    public void register(String chargeBoxId, WebSocketSession session) {
+        Entry entry = new Entry(chargeBoxId, session, ThreadLocalRandom.current().nextInt(SLICE_COUNT));
+        entries.put(session.getId(), entry);
+        slices[entry.slice].add(entry);
+    }
+
+    public void unregister(WebSocketSession session) {
+        Entry entry = entries.remove(session.getId());
+        if (entry != null) {
+            slices[entry.slice].remove(entry);
+        }
+    }
+
+    /**
+     * To be called for every sign of life from the station (a pong, but also any other message)
+     */
+    public void touch(WebSocketSession session) {
+        Entry entry = entries.get(session.getId());
+        if (entry != null) {
+            entry.lastSeen = System.nanoTime();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private void sweep() {
+        try {
+            Set<Entry> slice = slices[currentSlice];
+            currentSlice = (currentSlice + 1) % SLICE_COUNT;
+
+            long now = System.nanoTime();
+            for (Entry entry : slice) {
+                if (now - entry.lastSeen > MAX_MISSED_PINGS * PING_INTERVAL_NANOS) {
+                    closeDead(entry);
+                } else {
+                    entry.pingTask.run();
+                    pingCounter.increment();
+                }
+            }
+        } catch (Exception e) {
+            // Do not let the exception cancel the periodic sweep
+            log.error("Exception occurred", e);
+        }
+    }
+
+    private void closeDead(Entry entry) {
+        WebSocketLogger.closingDeadSession(entry.chargeBoxId, entry.session, MAX_MISSED_PINGS);
+
+        // The entry is removed by onClose of the endpoint as well, but do not wait for that
+        unregister(entry.session);
+        deadCounter.increment();
+
+        try {
+            entry.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.warn("Could not close the session", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<Entry>[] createSlices() {
+        Set<Entry>[] array = new Set[SLICE_COUNT];
+        for (int i = 0; i < SLICE_COUNT; i++) {
+            array[i] = ConcurrentHashMap.newKeySet();
+        }
+        return array;
+    }
+
+    private static class Entry {
+        private final String chargeBoxId;
+        private final WebSocketSession session;
+        private final PingTask pingTask;
+        private final int slice;
+
+        private volatile long lastSeen = System.nanoTime();
+
+        private Entry(String chargeBoxId, WebSocketSession session, int slice) {
+            this.chargeBoxId = chargeBoxId;
+            this.session = session;
+            this.pingTask = new PingTask(chargeBoxId, session);
+            this.slice = slice;
+        }
+    }
+}
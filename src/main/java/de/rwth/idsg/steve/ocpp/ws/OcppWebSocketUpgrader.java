@@ -23,6 +23,8 @@ import de.rwth.idsg.steve.service.NotificationService;
 import ocpp.cs._2015._10.RegistrationStatus;
 import org.eclipse.jetty.websocket.api.WebSocketPolicy;
 import org.jetbrains.annotations.Nullable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.web.socket.WebSocketExtension;
@@ -30,6 +32,7 @@ import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.server.HandshakeFailureException;
 import org.springframework.web.socket.server.jetty.JettyRequestUpgradeStrategy;
 
+import java.net.InetSocketAddress;
 import java.security.Principal;
 import java.util.List;
 import java.util.Map;
@@ -44,14 +47,17 @@ public class OcppWebSocketUpgrader extends JettyRequestUpgradeStrategy {
     private final List<AbstractWebSocketEndpoint> endpoints;
     private final NotificationService notificationService;
     private final ChargePointHelperService chargePointHelperService;
+    private final HandshakeAdmissionController admissionController;
 
     public OcppWebSocketUpgrader(WebSocketPolicy policy, List<AbstractWebSocketEndpoint> endpoints,
                                  NotificationService notificationService,
-                                 ChargePointHelperService chargePointHelperService) {
+                                 ChargePointHelperService chargePointHelperService,
+                                 HandshakeAdmissionController admissionController) {
         super(policy);
         this.endpoints = endpoints;
         this.notificationService = notificationService;
         this.chargePointHelperService = chargePointHelperService;
+        this.admissionController = admissionController;
     }
 
     @Override
@@ -59,6 +65,24 @@ public class OcppWebSocketUpgrader extends JettyRequestUpgradeStrategy {
                         String selectedProtocol, List<WebSocketExtension> selectedExtensions, Principal user,
                         WebSocketHandler wsHandler, Map<String, Object> attributes) throws HandshakeFailureException {
 
+        HandshakeAdmissionController.Admission admission = admissionController.tryAdmit(getAddress(request));
+        if (!admission.isAdmitted()) {
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(admission.getRetryAfterSeconds()));
+            return;
+        }
+
+        try {
+            upgradeInternal(request, response, selectedProtocol, selectedExtensions, user, attributes);
+        } finally {
+            admissionController.release();
+        }
+    }
+
+    private void upgradeInternal(ServerHttpRequest request, ServerHttpResponse response,
+                                 String selectedProtocol, List<WebSocketExtension> selectedExtensions, Principal user,
+                                 Map<String, Object> attributes) throws HandshakeFailureException {
+
         // -------------------------------------------------------------------------
         // 1. Check the chargeBoxId
         // -------------------------------------------------------------------------
@@ -102,6 +126,15 @@ public class OcppWebSocketUpgrader extends JettyRequestUpgradeStrategy {
         return null;
     }
 
+    @Nullable
+    private static String getAddress(ServerHttpRequest request) {
+        InetSocketAddress address = request.getRemoteAddress();
+        if (address == null || address.getAddress() == null) {
+            return null;
+        }
+        return address.getAddress().getHostAddress();
+    }
+
     /**
      * Taken from: http://stackoverflow.com/a/4050276
      */
@@ -19,7 +19,6 @@
 package de.rwth.idsg.steve.ocpp.ws;
 
 import com.google.common.collect.ImmutableMap;
-import com.google.common.util.concurrent.Striped;
 import de.rwth.idsg.steve.SteveException;
 import de.rwth.idsg.steve.ocpp.ws.custom.WsSessionSelectStrategy;
 import de.rwth.idsg.steve.ocpp.ws.data.SessionContext;
@@ -27,19 +26,23 @@ import lombok.extern.slf4j.Slf4j;
 import org.joda.time.DateTime;
 import org.springframework.web.socket.WebSocketSession;
 
-import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.locks.Lock;
+import java.util.function.IntSupplier;
 
 import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
 
 /**
+ * The session contexts of a charge point are kept in an array that is never modified. Adding or removing a session
+ * creates a new array, which replaces the old one with a compare-and-set (and is retried, if another thread came
+ * first). Therefore, reading (selecting a session for an outgoing call, taking a snapshot for the status page) does
+ * not lock, and always sees a consistent set of sessions.
+ *
  * @author Sevket Goekay <goekay@dbis.rwth-aachen.de>
  * @since 17.03.2015
  */
@@ -47,94 +50,98 @@ import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
 public class SessionContextStore {
 
     /**
-     * Key   (String)                = chargeBoxId
-     * Value (Deque<SessionContext>) = WebSocket session contexts
+     * Key   (String)           = chargeBoxId
+     * Value (SessionContext[]) = WebSocket session contexts, in the order they are opened. Never modified!
      */
-    private final ConcurrentHashMap<String, Deque<SessionContext>> lookupTable = new ConcurrentHashMap<>();
-
-    private final Striped<Lock> locks = Striped.lock(16);
+    private final ConcurrentHashMap<String, SessionContext[]> lookupTable = new ConcurrentHashMap<>();
 
     private final WsSessionSelectStrategy wsSessionSelectStrategy = CONFIG.getOcpp().getWsSessionSelectStrategy();
 
-    public void add(String chargeBoxId, WebSocketSession session, ScheduledFuture pingSchedule) {
-        Lock l = locks.get(chargeBoxId);
-        l.lock();
-        try {
-            SessionContext context = new SessionContext(session, pingSchedule, DateTime.now());
+    /**
+     * @return the number of session contexts of the charge point before adding this one
+     */
+    public int add(String chargeBoxId, WebSocketSession session, IntSupplier pendingCalls) {
+        SessionContext context = new SessionContext(session, DateTime.now(), pendingCalls);
 
-            Deque<SessionContext> endpointDeque = lookupTable.computeIfAbsent(chargeBoxId, str -> new ArrayDeque<>());
-            endpointDeque.addLast(context); // Adding at the end
+        while (true) {
+            SessionContext[] current = lookupTable.get(chargeBoxId);
 
-            log.debug("A new SessionContext is stored for chargeBoxId '{}'. Store size: {}",
-                    chargeBoxId, endpointDeque.size());
-        } finally {
-            l.unlock();
+            if (current == null) {
+                if (lookupTable.putIfAbsent(chargeBoxId, new SessionContext[] {context}) == null) {
+                    log.debug("A new SessionContext is stored for chargeBoxId '{}'. Store size: 1", chargeBoxId);
+                    return 0;
+                }
+            } else {
+                // A new session starts on par with the others, instead of being selected until it catches up
+                context.getSelectionCount().set(getMinSelectionCount(current));
+
+                SessionContext[] updated = Arrays.copyOf(current, current.length + 1);
+                updated[current.length] = context; // Adding at the end
+
+                // Arrays do not override equals(), so this compares the references
+                if (lookupTable.replace(chargeBoxId, current, updated)) {
+                    log.debug("A new SessionContext is stored for chargeBoxId '{}'. Store size: {}",
+                            chargeBoxId, updated.length);
+                    return current.length;
+                }
+            }
         }
     }
 
-    public void remove(String chargeBoxId, WebSocketSession session) {
-        Lock l = locks.get(chargeBoxId);
-        l.lock();
-        try {
-            Deque<SessionContext> endpointDeque = lookupTable.get(chargeBoxId);
-            if (endpointDeque == null) {
+    /**
+     * @return the number of session contexts of the charge point after removing this one
+     */
+    public int remove(String chargeBoxId, WebSocketSession session) {
+        while (true) {
+            SessionContext[] current = lookupTable.get(chargeBoxId);
+            if (current == null) {
                 log.debug("No session context to remove for chargeBoxId '{}'", chargeBoxId);
-                return;
+                return 0;
             }
 
-            // Prevent "java.util.ConcurrentModificationException: null"
-            // Reason: Cannot modify the set (remove the item) we are iterating
-            // Solution: Iterate the set, find the item, remove the item after the for-loop
-            //
-            SessionContext toRemove = null;
-            for (SessionContext context : endpointDeque) {
-                if (context.getSession().getId().equals(session.getId())) {
-                    toRemove = context;
-                    break;
-                }
+            int index = indexOf(current, session);
+            if (index == -1) {
+                return current.length;
             }
 
-            if (toRemove != null) {
-                // 1. Cancel the ping task
-                toRemove.getPingSchedule().cancel(true);
-                // 2. Delete from collection
-                if (endpointDeque.remove(toRemove)) {
-                    log.debug("A SessionContext is removed for chargeBoxId '{}'. Store size: {}",
-                            chargeBoxId, endpointDeque.size());
-                }
-                // 3. Delete empty collection from lookup table in order to correctly calculate
+            boolean replaced;
+            if (current.length == 1) {
+                // Delete the empty entry from lookup table in order to correctly calculate
                 // the number of connected chargeboxes with getNumberOfChargeBoxes()
-                if (endpointDeque.size() == 0) {
-                    lookupTable.remove(chargeBoxId);
-                }
+                replaced = lookupTable.remove(chargeBoxId, current);
+            } else {
+                SessionContext[] updated = new SessionContext[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, index);
+                System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+                replaced = lookupTable.replace(chargeBoxId, current, updated);
+            }
+
+            if (replaced) {
+                log.debug("A SessionContext is removed for chargeBoxId '{}'. Store size: {}",
+                        chargeBoxId, current.length - 1);
+                return current.length - 1;
             }
-        } finally {
-            l.unlock();
         }
     }
 
     public WebSocketSession getSession(String chargeBoxId) {
-        Lock l = locks.get(chargeBoxId);
-        l.lock();
         try {
-            Deque<SessionContext> endpointDeque = lookupTable.get(chargeBoxId);
-            if (endpointDeque == null) {
+            SessionContext[] contexts = lookupTable.get(chargeBoxId);
+            if (contexts == null) {
                 throw new NoSuchElementException();
             }
-            return wsSessionSelectStrategy.getSession(endpointDeque);
+            return wsSessionSelectStrategy.getSession(asList(contexts));
         } catch (NoSuchElementException e) {
             throw new SteveException("No session context for chargeBoxId '%s'", chargeBoxId, e);
-        } finally {
-            l.unlock();
         }
     }
 
     public int getSize(String chargeBoxId) {
-        Deque<SessionContext> endpointDeque = lookupTable.get(chargeBoxId);
-        if (endpointDeque == null) {
+        SessionContext[] contexts = lookupTable.get(chargeBoxId);
+        if (contexts == null) {
             return 0;
         } else {
-            return endpointDeque.size();
+            return contexts.length;
         }
     }
 
@@ -143,10 +150,40 @@ public class SessionContextStore {
     }
 
     public List<String> getChargeBoxIdList() {
-        return Collections.list(lookupTable.keys());
+        return new ArrayList<>(lookupTable.keySet());
+    }
+
+    /**
+     * Cheap, since the arrays are not modified and therefore do not need to be copied
+     */
+    public Map<String, List<SessionContext>> getACopy() {
+        ImmutableMap.Builder<String, List<SessionContext>> builder = ImmutableMap.builder();
+        lookupTable.forEach((chargeBoxId, contexts) -> builder.put(chargeBoxId, asList(contexts)));
+        return builder.build();
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private static List<SessionContext> asList(SessionContext[] contexts) {
+        return Collections.unmodifiableList(Arrays.asList(contexts));
     }
 
-    public Map<String, Deque<SessionContext>> getACopy() {
-        return ImmutableMap.copyOf(lookupTable);
+    private static int indexOf(SessionContext[] contexts, WebSocketSession session) {
+        for (int i = 0; i < contexts.length; i++) {
+            if (contexts[i].getSession().getId().equals(session.getId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long getMinSelectionCount(SessionContext[] contexts) {
+        long min = Long.MAX_VALUE;
+        for (SessionContext context : contexts) {
+            min = Math.min(min, context.getSelectionCount().get());
+        }
+        return min;
     }
 }
@@ -59,6 +59,11 @@ public final class WebSocketLogger {
         log.warn("[chargeBoxId={}, sessionId={}] Received empty text message. Will pretend this never happened.", chargeBoxId, session.getId());
     }
 
+    public static void closingDeadSession(String chargeBoxId, WebSocketSession session, int missedPings) {
+        log.warn("[chargeBoxId={}, sessionId={}] No sign of life for the last {} pings. Closing the connection",
+                chargeBoxId, session.getId(), missedPings);
+    }
+
     public static void pingError(String chargeBoxId, WebSocketSession session, Throwable t) {
         if (log.isErrorEnabled()) {
             log.error("[chargeBoxId=" + chargeBoxId + ", sessionId=" + session.getId() + "] Ping error", t);
@@ -0,0 +1,32 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.custom;
+
+/**
+ * Every outgoing CALL needs a message id, which the charge point copies into its response. We use it to find
+ * the context of the call. Implementations of this interface should use different mechanisms to generate them.
+ *
+ * The ids must be unique across restarts of the application as well, so that a late response to a call of a
+ * previous run can never be mistaken for the response of a new call.
+ *
+ * @since 18.10.2026
+ */
+public interface WsMessageIdStrategy {
+    String nextMessageId();
+}
@@ -0,0 +1,76 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.custom;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @since 18.10.2026
+ */
+public enum WsMessageIdStrategyEnum implements WsMessageIdStrategy {
+
+    UUID_RANDOM {
+        /**
+         * Random UUIDs. All threads draw from one shared SecureRandom, which becomes a point of contention
+         * when a task is sent to many charge points at once.
+         */
+        @Override
+        public String nextMessageId() {
+            return UUID.randomUUID().toString();
+        }
+    },
+
+    NODE_COUNTER {
+        private final AtomicLong counter = new AtomicLong();
+
+        /**
+         * A prefix that identifies this run of the application, and a counter. Both are encoded in base 36 to keep
+         * the id short (OCPP allows at most 36 characters). The prefix consists of the start time and some random
+         * characters (in case of multiple instances starting at the same millisecond), and is created only once.
+         */
+        @Override
+        public String nextMessageId() {
+            return NodePrefix.VALUE + Long.toString(counter.incrementAndGet(), Character.MAX_RADIX);
+        }
+    };
+
+    public static WsMessageIdStrategy fromName(String v) {
+        for (WsMessageIdStrategyEnum s : WsMessageIdStrategyEnum.values()) {
+            if (s.name().equals(v)) {
+                return s;
+            }
+        }
+        throw new IllegalArgumentException("Could not find a valid WsMessageIdStrategy for name: " + v);
+    }
+
+    /**
+     * Lazy holder, such that the SecureRandom is not touched if this strategy is not used
+     */
+    private static final class NodePrefix {
+        private static final String VALUE = create();
+
+        private static String create() {
+            String startTime = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+            String random = Integer.toString(new SecureRandom().nextInt(Integer.MAX_VALUE), Character.MAX_RADIX);
+            return startTime + "." + random + "-";
+        }
+    }
+}
@@ -21,7 +21,7 @@ package de.rwth.idsg.steve.ocpp.ws.custom;
 import de.rwth.idsg.steve.ocpp.ws.data.SessionContext;
 import org.springframework.web.socket.WebSocketSession;
 
-import java.util.Deque;
+import java.util.List;
 
 /**
  * We want to support multiple connections to a charge point. For sending messages we need a
@@ -32,5 +32,10 @@ import java.util.Deque;
  * @since 30.04.2015
  */
 public interface WsSessionSelectStrategy {
-    WebSocketSession getSession(Deque<SessionContext> sessionContexts);
+
+    /**
+     * @param sessionContexts in the order they are opened. Must not be modified, since the store shares it with
+     *                        concurrent readers without locking.
+     */
+    WebSocketSession getSession(List<SessionContext> sessionContexts);
 }
@@ -21,8 +21,10 @@ package de.rwth.idsg.steve.ocpp.ws.custom;
 import de.rwth.idsg.steve.ocpp.ws.data.SessionContext;
 import lombok.Getter;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 
-import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * @author Sevket Goekay <goekay@dbis.rwth-aachen.de>
@@ -36,8 +38,11 @@ public enum WsSessionSelectStrategyEnum implements WsSessionSelectStrategy {
          * Always use the last opened session/connection.
          */
         @Override
-        public WebSocketSession getSession(Deque<SessionContext> sessionContexts) {
-            return sessionContexts.getLast().getSession();
+        public WebSocketSession getSession(List<SessionContext> sessionContexts) {
+            if (sessionContexts.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return sessionContexts.get(sessionContexts.size() - 1).getSession();
         }
     },
 
@@ -45,13 +50,62 @@ public enum WsSessionSelectStrategyEnum implements WsSessionSelectStrategy {
         /**
          * The sessions/connections are chosen in a round robin fashion.
          * This would allow to distribute load to different connections.
+         *
+         * The session that is selected the fewest times is chosen (the oldest one in case of a tie), since the
+         * contexts cannot be reordered. Concurrent selections might occasionally choose the same session.
          */
         @Override
-        public WebSocketSession getSession(Deque<SessionContext> sessionContexts) {
-            // Remove the first item, and add at the end
-            SessionContext s = sessionContexts.removeFirst();
-            sessionContexts.addLast(s);
-            return s.getSession();
+        public WebSocketSession getSession(List<SessionContext> sessionContexts) {
+            SessionContext selected = null;
+            long selectedCount = Long.MAX_VALUE;
+
+            for (SessionContext context : sessionContexts) {
+                long count = context.getSelectionCount().get();
+                if (count < selectedCount) {
+                    selected = context;
+                    selectedCount = count;
+                }
+            }
+
+            if (selected == null) {
+                throw new NoSuchElementException();
+            }
+            selected.getSelectionCount().incrementAndGet();
+            return selected.getSession();
+        }
+    },
+
+    LEAST_PENDING {
+        /**
+         * The session/connection with the fewest calls that are sent or queued, and the last opened one in case of a
+         * tie. A session whose send buffer is backed up (i.e. earlier messages are not written to the network yet) is
+         * chosen only if all sessions are backed up.
+         */
+        @Override
+        public WebSocketSession getSession(List<SessionContext> sessionContexts) {
+            SessionContext selected = null;
+            boolean selectedBackedUp = true;
+            int selectedPending = Integer.MAX_VALUE;
+
+            for (SessionContext context : sessionContexts) {
+                boolean backedUp = isBackedUp(context.getSession());
+                int pending = context.getPendingCalls();
+
+                boolean better = (selected == null)
+                        || (selectedBackedUp && !backedUp)
+                        || (selectedBackedUp == backedUp && pending <= selectedPending);
+
+                if (better) {
+                    selected = context;
+                    selectedBackedUp = backedUp;
+                    selectedPending = pending;
+                }
+            }
+
+            if (selected == null) {
+                throw new NoSuchElementException();
+            }
+            return selected.getSession();
         }
     };
 
@@ -63,4 +117,15 @@ public enum WsSessionSelectStrategyEnum implements WsSessionSelectStrategy {
         }
         throw new IllegalArgumentException("Could not find a valid WsSessionSelectStrategy for name: " + v);
     }
+
+    private static boolean isBackedUp(WebSocketSession session) {
+        if (!session.isOpen()) {
+            return true;
+        }
+        // The endpoints get the sessions wrapped in this decorator, see ConcurrentWebSocketHandler
+        if (session instanceof ConcurrentWebSocketSessionDecorator) {
+            return ((ConcurrentWebSocketSessionDecorator) session).getBufferSize() > 0;
+        }
+        return false;
+    }
 }
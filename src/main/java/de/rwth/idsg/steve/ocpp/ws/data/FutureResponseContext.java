@@ -20,6 +20,7 @@ package de.rwth.idsg.steve.ocpp.ws.data;
 
 import de.rwth.idsg.ocpp.jaxb.ResponseType;
 import de.rwth.idsg.steve.ocpp.CommunicationTask;
+import de.rwth.idsg.steve.utils.HashedWheelTimer;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
@@ -34,4 +35,7 @@ import lombok.Setter;
 public class FutureResponseContext {
     private final CommunicationTask task;
     private final Class<? extends ResponseType> responseClass;
+
+    // Deadline for the response, set when the call is sent
+    private HashedWheelTimer.Timeout timeout;
 }
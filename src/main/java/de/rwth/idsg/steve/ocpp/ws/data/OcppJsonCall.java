@@ -32,6 +32,12 @@ public class OcppJsonCall extends OcppJsonMessage {
     private String action;
     private RequestType payload;
 
+    /**
+     * The payload as JSON, if it is already serialized (e.g. since the same call goes to many stations). If set,
+     * it is written into the frame as is, instead of serializing the payload again.
+     */
+    private String serializedPayload;
+
     public OcppJsonCall() {
         super(MessageType.CALL);
     }
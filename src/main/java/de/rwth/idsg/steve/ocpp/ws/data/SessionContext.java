@@ -23,7 +23,8 @@ import lombok.RequiredArgsConstructor;
 import org.joda.time.DateTime;
 import org.springframework.web.socket.WebSocketSession;
 
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
 
 /**
  * @author Sevket Goekay <goekay@dbis.rwth-aachen.de>
@@ -33,6 +34,15 @@ import java.util.concurrent.ScheduledFuture;
 @RequiredArgsConstructor
 public class SessionContext {
     private final WebSocketSession session;
-    private final ScheduledFuture pingSchedule;
     private final DateTime openSince;
+
+    // The number of calls that are sent or queued in this session. Can be read without locking.
+    private final IntSupplier pendingCalls;
+
+    // How often this session is selected for an outgoing call. Used for round robin.
+    private final AtomicLong selectionCount = new AtomicLong();
+
+    public int getPendingCalls() {
+        return pendingCalls.getAsInt();
+    }
 }
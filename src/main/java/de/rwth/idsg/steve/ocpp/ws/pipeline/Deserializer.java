@@ -20,7 +20,6 @@ package de.rwth.idsg.steve.ocpp.ws.pipeline;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.TreeNode;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import de.rwth.idsg.ocpp.jaxb.RequestType;
 import de.rwth.idsg.ocpp.jaxb.ResponseType;
@@ -38,9 +37,11 @@ import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonError;
 import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Incoming String --> OcppJsonMessage
@@ -94,6 +95,55 @@ public class Deserializer implements Consumer<CommunicationContext> {
         }
     }
 
+    /**
+     * Reads only the header of the incoming string (message type and id) and, if it is a CALL, sets the error
+     * created for its id as the outgoing message. The payload is not deserialized. This is meant for CALLs that we
+     * are not going to process at all, and should therefore cost as little as possible.
+     *
+     * @return false, if the incoming string is not a CALL (or the header cannot be read). Nothing is set then.
+     */
+    public boolean rejectCall(CommunicationContext context, Function<String, OcppJsonError> errorCreator) {
+        try (JsonParser parser = mapper.getFactory().createParser(context.getIncomingString())) {
+            parser.nextToken(); // set cursor to '['
+
+            parser.nextToken();
+            if (parser.getIntValue() != MessageType.CALL.getTypeNr()) {
+                return false;
+            }
+
+            parser.nextToken();
+            context.setOutgoingMessage(errorCreator.apply(parser.getText()));
+            return true;
+
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads only the header of the incoming string, in order to decide whether to process it at all.
+     *
+     * @return the action, if the incoming string is a CALL. Otherwise (or if the header cannot be read), null.
+     */
+    @Nullable
+    public String readCallAction(CommunicationContext context) {
+        try (JsonParser parser = mapper.getFactory().createParser(context.getIncomingString())) {
+            parser.nextToken(); // set cursor to '['
+
+            parser.nextToken();
+            if (parser.getIntValue() != MessageType.CALL.getTypeNr()) {
+                return null;
+            }
+
+            parser.nextToken(); // message id
+            parser.nextToken();
+            return parser.getText();
+
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     // -------------------------------------------------------------------------
     // Private Helpers
     // -------------------------------------------------------------------------
@@ -123,9 +173,7 @@ public class Deserializer implements Consumer<CommunicationContext> {
         // parse request payload
         RequestType req;
         try {
-            parser.nextToken();
-            JsonNode requestPayload = parser.readValueAsTree();
-            req = mapper.treeToValue(requestPayload, clazz);
+            req = readPayload(parser, clazz);
         } catch (IOException e) {
             log.error("Exception occurred", e);
             context.setOutgoingMessage(ErrorFactory.payloadDeserializeError(messageId, e.getMessage()));
@@ -147,17 +195,16 @@ public class Deserializer implements Consumer<CommunicationContext> {
     private void handleResult(CommunicationContext context, String messageId, JsonParser parser) {
         FutureResponseContext responseContext = futureResponseContextStore.get(context.getSession(), messageId);
         if (responseContext == null) {
-            throw new SteveException(
-                    "A result message was received as response to a not-sent call. The message was: %s",
-                    context.getIncomingString()
-            );
+            // Either we never sent this call, or the response is too late and the call has timed out already.
+            // Nothing to process, but also no reason to fail (and close the connection).
+            log.warn("A result message was received as response to a not-sent or timed out call. The message was: {}",
+                    context.getIncomingString());
+            return;
         }
 
         ResponseType res;
         try {
-            parser.nextToken();
-            JsonNode responsePayload = parser.readValueAsTree();
-            res = mapper.treeToValue(responsePayload, responseContext.getResponseClass());
+            res = readPayload(parser, responseContext.getResponseClass());
         } catch (IOException e) {
             throw new SteveException("Deserialization of incoming response payload failed", e);
         }
@@ -177,10 +224,11 @@ public class Deserializer implements Consumer<CommunicationContext> {
     private void handleError(CommunicationContext context, String messageId, JsonParser parser) {
         FutureResponseContext responseContext = futureResponseContextStore.get(context.getSession(), messageId);
         if (responseContext == null) {
-            throw new SteveException(
-                    "An error message was received as response to a not-sent call. The message was: %s",
-                    context.getIncomingString()
-            );
+            // Either we never sent this call, or the response is too late and the call has timed out already.
+            // Nothing to process, but also no reason to fail (and close the connection).
+            log.warn("An error message was received as response to a not-sent or timed out call. The message was: {}",
+                    context.getIncomingString());
+            return;
         }
 
         ErrorCode code;
@@ -222,4 +270,14 @@ public class Deserializer implements Consumer<CommunicationContext> {
         context.createErrorHandler(responseContext.getTask());
     }
 
+    /**
+     * Binds the payload directly from the open parser into the target class. We do not materialize an intermediate
+     * JsonNode tree first (which would parse every message into two object graphs), since the payload is the last
+     * element of the array and the parser is already positioned right before it.
+     */
+    private <T> T readPayload(JsonParser parser, Class<T> clazz) throws IOException {
+        parser.nextToken(); // set cursor to '{'
+        return mapper.readValue(parser, clazz);
+    }
+
 }
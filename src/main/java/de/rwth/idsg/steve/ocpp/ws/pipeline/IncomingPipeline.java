@@ -25,8 +25,10 @@ import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonMessage;
 import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * For all incoming message types.
@@ -72,4 +74,28 @@ public class IncomingPipeline implements Consumer<CommunicationContext> {
         }
     }
 
+    /**
+     * Used instead of accept(), when the incoming message is not going to be processed: An incoming CALL is
+     * answered with the error right away.
+     *
+     * @return false, if the incoming message is not a CALL. Responses to our own CALLs cannot be rejected.
+     */
+    public boolean rejectCall(CommunicationContext context, Function<String, OcppJsonError> errorCreator) {
+        if (!deserializer.rejectCall(context, errorCreator)) {
+            return false;
+        }
+
+        serializer.accept(context);
+        sender.accept(context);
+        return true;
+    }
+
+    /**
+     * @return the action, if the incoming message is a CALL. Otherwise, null.
+     */
+    @Nullable
+    public String readCallAction(CommunicationContext context) {
+        return deserializer.readCallAction(context);
+    }
+
 }
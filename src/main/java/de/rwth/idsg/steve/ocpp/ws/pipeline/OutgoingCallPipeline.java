@@ -20,10 +20,13 @@ package de.rwth.idsg.steve.ocpp.ws.pipeline;
 
 import de.rwth.idsg.steve.ocpp.ws.FutureResponseContextStore;
 import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
@@ -38,11 +41,13 @@ public class OutgoingCallPipeline implements Consumer<CommunicationContext> {
 
     private final Consumer<CommunicationContext> chainedConsumers;
 
+    private final FutureResponseContextStore store;
+
     @Autowired
     public OutgoingCallPipeline(FutureResponseContextStore store) {
+        this.store = store;
         chainedConsumers = OutgoingCallPipeline.start(Serializer.INSTANCE)
-                                               .andThen(Sender.INSTANCE)
-                                               .andThen(saveInStore(store));
+                                               .andThen(submitToStore(store));
     }
 
     @Override
@@ -50,13 +55,37 @@ public class OutgoingCallPipeline implements Consumer<CommunicationContext> {
         chainedConsumers.accept(ctx);
     }
 
-    private static Consumer<CommunicationContext> saveInStore(FutureResponseContextStore store) {
-        return context -> {
-            // All went well, and the call is sent. Store the response context for later lookup.
-            store.add(context.getSession(),
-                      context.getOutgoingMessage().getMessageId(),
-                      context.getFutureResponseContext());
-        };
+    /**
+     * For the same call to many stations: The contexts must have the same payload and differ only in the message id
+     * (and the station). The payload is serialized once, and only the frame around it per station. The response
+     * contexts are stored in one batch, before sending any of the calls.
+     *
+     * A failure of one station (too many queued calls, sending fails) does not affect the others, but is passed to
+     * the handler. A failure to serialize the payload affects all of them and is thrown.
+     */
+    public void broadcast(List<CommunicationContext> contexts, BiConsumer<CommunicationContext, Exception> onFailure) {
+        if (contexts.isEmpty()) {
+            return;
+        }
+
+        OcppJsonCall first = (OcppJsonCall) contexts.get(0).getOutgoingMessage();
+        String serializedPayload = Serializer.INSTANCE.serializePayload(first.getPayload());
+
+        for (CommunicationContext ctx : contexts) {
+            ((OcppJsonCall) ctx.getOutgoingMessage()).setSerializedPayload(serializedPayload);
+            Serializer.INSTANCE.accept(ctx);
+        }
+
+        store.submitAll(contexts, onFailure);
+    }
+
+    /**
+     * The store decides when the call is sent: Right away, or after the previous call of the station is answered.
+     * The response context is stored BEFORE sending the call. Otherwise, a fast response could arrive before its
+     * context is there. This is also where the call is refused, if the station has too many queued calls already.
+     */
+    private static Consumer<CommunicationContext> submitToStore(FutureResponseContextStore store) {
+        return store::submit;
     }
 
     private static Consumer<CommunicationContext> start(Consumer<CommunicationContext> starter) {
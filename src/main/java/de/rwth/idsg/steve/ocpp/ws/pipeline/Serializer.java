@@ -18,10 +18,9 @@
  */
 package de.rwth.idsg.steve.ocpp.ws.pipeline;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.rwth.idsg.ocpp.jaxb.RequestType;
 import de.rwth.idsg.steve.SteveException;
 import de.rwth.idsg.steve.ocpp.ws.ErrorFactory;
 import de.rwth.idsg.steve.ocpp.ws.JsonObjectMapper;
@@ -33,13 +32,20 @@ import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonMessage;
 import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonResult;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.CharArrayWriter;
 import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.function.Consumer;
 
 /**
  * Outgoing OcppJsonMessage --> String.
  *
- * This class should remain stateless.
+ * The frame is written with the streaming API directly into a pooled buffer, without building an intermediate
+ * JsonNode tree for the array or the payload. The buffers are pooled instead of kept per thread, since the messages
+ * might be processed by virtual threads, which are not reused.
+ *
+ * This class should remain stateless (apart from the pooled buffers, which do not outlive a single call).
  *
  * @author Sevket Goekay <goekay@dbis.rwth-aachen.de>
  * @since 17.03.2015
@@ -48,36 +54,74 @@ import java.util.function.Consumer;
 public enum Serializer implements Consumer<CommunicationContext> {
     INSTANCE;
 
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    /**
+     * More concurrent calls than this create a new buffer, which is dropped afterwards if the pool is full
+     */
+    private static final int BUFFER_POOL_SIZE = 32;
+
+    /**
+     * Buffers that grew beyond this size (e.g. because of a large DataTransfer) are not kept for reuse,
+     * so that the pool does not pin the largest messages ever in memory.
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
     private final ObjectMapper mapper = JsonObjectMapper.INSTANCE.getMapper();
 
+    private final BlockingQueue<CharArrayWriter> buffers = new ArrayBlockingQueue<>(BUFFER_POOL_SIZE);
+
     @Override
     public void accept(CommunicationContext context) {
         OcppJsonMessage message = context.getOutgoingMessage();
 
-        ArrayNode str;
-        MessageType messageType = message.getMessageType();
-        switch (messageType) {
-            case CALL:
-                str = handleCall((OcppJsonCall) message);
-                break;
+        CharArrayWriter buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new CharArrayWriter(INITIAL_BUFFER_SIZE);
+        }
+
+        try {
+            MessageType messageType = message.getMessageType();
+            switch (messageType) {
+                case CALL:
+                    handleCall(buffer, (OcppJsonCall) message);
+                    break;
+
+                case CALL_RESULT:
+                    handleResult(buffer, (OcppJsonResult) message);
+                    break;
 
-            case CALL_RESULT:
-                str = handleResult((OcppJsonResult) message);
-                break;
+                case CALL_ERROR:
+                    handleError(buffer, (OcppJsonError) message);
+                    break;
 
-            case CALL_ERROR:
-                str = handleError((OcppJsonError) message);
-                break;
+                default:
+                    throw new SteveException("Unknown enum type");
+            }
+
+            context.setOutgoingString(buffer.toString());
+
+        } catch (IOException e) {
+            throw new SteveException("The outgoing message could not be serialized", e);
 
-            default:
-                throw new SteveException("Unknown enum type");
+        } finally {
+            if (buffer.size() <= MAX_RETAINED_BUFFER_SIZE) {
+                buffer.reset();
+                buffers.offer(buffer);
+            }
         }
+    }
 
+    /**
+     * For the calls that go to many stations with the same payload: The payload is serialized once with this method,
+     * and set as {@link OcppJsonCall#setSerializedPayload(String)} for each call. Then, only the small frame around
+     * it is written per station.
+     */
+    public String serializePayload(RequestType payload) {
         try {
-            String result = mapper.writeValueAsString(str);
-            context.setOutgoingString(result);
+            return mapper.writeValueAsString(payload);
         } catch (IOException e) {
-            throw new SteveException("The outgoing message could not be serialized", e);
+            throw new SteveException("The payload of the outgoing call could not be converted to JSON", e);
         }
     }
 
@@ -89,43 +133,48 @@ public enum Serializer implements Consumer<CommunicationContext> {
      * Do NOT catch and handle exceptions for outgoing CALLs. Do NOT send the message.
      * Let the processing fail and acknowledge the user.
      */
-    private ArrayNode handleCall(OcppJsonCall call) {
-        JsonNode payloadNode;
-        try {
-            payloadNode = mapper.valueToTree(call.getPayload());
-        } catch (IllegalArgumentException e) {
-            throw new SteveException("The payload of the outgoing call could not be converted to JSON", e);
+    private void handleCall(CharArrayWriter buffer, OcppJsonCall call) throws IOException {
+        try (JsonGenerator gen = createGenerator(buffer)) {
+            gen.writeStartArray();
+            gen.writeNumber(call.getMessageType().getTypeNr());
+            gen.writeString(call.getMessageId());
+            gen.writeString(call.getAction());
+            if (call.getSerializedPayload() != null) {
+                gen.writeRawValue(call.getSerializedPayload());
+            } else {
+                try {
+                    mapper.writeValue(gen, call.getPayload());
+                } catch (IOException e) {
+                    throw new SteveException("The payload of the outgoing call could not be converted to JSON", e);
+                }
+            }
+            gen.writeEndArray();
         }
-
-        return mapper.createArrayNode()
-                     .add(call.getMessageType().getTypeNr())
-                     .add(call.getMessageId())
-                     .add(call.getAction())
-                     .add(payloadNode);
     }
 
     /**
      * Catch exceptions and wrap them in outgoing ERRORs for outgoing RESPONSEs.
      */
-    private ArrayNode handleResult(OcppJsonResult result) {
-        JsonNode payloadNode;
-        try {
-            payloadNode = mapper.valueToTree(result.getPayload());
-        } catch (IllegalArgumentException e) {
+    private void handleResult(CharArrayWriter buffer, OcppJsonResult result) throws IOException {
+        try (JsonGenerator gen = createGenerator(buffer)) {
+            gen.writeStartArray();
+            gen.writeNumber(result.getMessageType().getTypeNr());
+            gen.writeString(result.getMessageId());
+            mapper.writeValue(gen, result.getPayload());
+            gen.writeEndArray();
+
+        } catch (IOException e) {
             log.error("Exception occurred", e);
-            return handleError(ErrorFactory.payloadSerializeError(result.getMessageId(), e.getMessage()));
+            // Discard whatever was partially written for the result, and write the error frame instead
+            buffer.reset();
+            handleError(buffer, ErrorFactory.payloadSerializeError(result.getMessageId(), e.getMessage()));
         }
-
-        return mapper.createArrayNode()
-                     .add(result.getMessageType().getTypeNr())
-                     .add(result.getMessageId())
-                     .add(payloadNode);
     }
 
     /**
      * No exception to catch during serialization, since the fields of the error are simple Strings.
      */
-    private ArrayNode handleError(OcppJsonError error) {
+    private void handleError(CharArrayWriter buffer, OcppJsonError error) throws IOException {
         // From spec:
         // ErrorDescription - Should be filled in if possible, otherwise a clear empty string "".
         String description;
@@ -135,19 +184,31 @@ public enum Serializer implements Consumer<CommunicationContext> {
             description = "";
         }
 
-        // From spec:
-        // ErrorDetails - This JSON object describes error details in an undefined way.
-        // If there are no error details you should fill in an empty object {}, missing or null is not allowed
-        ObjectNode detailsNode = mapper.createObjectNode();
-        if (error.isSetDetails()) {
-            detailsNode.set("errorMsg", mapper.getNodeFactory().textNode(error.toStringErrorDetails()));
+        try (JsonGenerator gen = createGenerator(buffer)) {
+            gen.writeStartArray();
+            gen.writeNumber(error.getMessageType().getTypeNr());
+            gen.writeString(error.getMessageId());
+            gen.writeString(error.getErrorCode().name());
+            gen.writeString(description);
+
+            // From spec:
+            // ErrorDetails - This JSON object describes error details in an undefined way.
+            // If there are no error details you should fill in an empty object {}, missing or null is not allowed
+            gen.writeStartObject();
+            if (error.isSetDetails()) {
+                gen.writeStringField("errorMsg", error.toStringErrorDetails());
+            }
+            gen.writeEndObject();
+
+            gen.writeEndArray();
         }
+    }
 
-        return mapper.createArrayNode()
-                     .add(error.getMessageType().getTypeNr())
-                     .add(error.getMessageId())
-                     .add(error.getErrorCode().name())
-                     .add(description)
-                     .add(detailsNode);
+    /**
+     * The generator is created by the factory of our mapper, so that it inherits the generator features
+     * (e.g. WRITE_BIGDECIMAL_AS_PLAIN) and the mapper as its codec.
+     */
+    private JsonGenerator createGenerator(CharArrayWriter buffer) throws IOException {
+        return mapper.getFactory().createGenerator(buffer);
     }
 }
@@ -19,6 +19,7 @@
 package de.rwth.idsg.steve.repository;
 
 import de.rwth.idsg.steve.repository.dto.InsertConnectorStatusParams;
+import de.rwth.idsg.steve.repository.dto.InsertMeterValuesParams;
 import de.rwth.idsg.steve.repository.dto.InsertTransactionParams;
 import de.rwth.idsg.steve.repository.dto.UpdateChargeboxParams;
 import de.rwth.idsg.steve.repository.dto.UpdateTransactionParams;
@@ -26,6 +27,7 @@ import ocpp.cs._2015._10.MeterValue;
 import org.joda.time.DateTime;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Sevket Goekay <goekay@dbis.rwth-aachen.de>
@@ -37,12 +39,13 @@ public interface OcppServerRepository {
     void updateEndpointAddress(String chargeBoxIdentity, String endpointAddress);
     void updateChargeboxFirmwareStatus(String chargeBoxIdentity, String firmwareStatus);
     void updateChargeboxDiagnosticsStatus(String chargeBoxIdentity, String status);
-    void updateChargeboxHeartbeat(String chargeBoxIdentity, DateTime ts);
+    void updateChargeboxHeartbeats(Map<String, DateTime> chargeBoxIdTimestampMap);
 
     void insertConnectorStatus(InsertConnectorStatusParams params);
 
     void insertMeterValues(String chargeBoxIdentity, List<MeterValue> list, int connectorId, Integer transactionId);
     void insertMeterValues(String chargeBoxIdentity, List<MeterValue> list, int transactionId);
+    void insertMeterValues(List<InsertMeterValuesParams> batch);
 
     int insertTransaction(InsertTransactionParams params);
     void updateTransaction(UpdateTransactionParams params);
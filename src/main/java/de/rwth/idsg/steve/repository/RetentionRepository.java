@@ -0,0 +1,55 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository;
+
+import org.joda.time.DateTime;
+
+import java.util.Optional;
+
+/**
+ * @since 18.10.2026
+ */
+public interface RetentionRepository {
+
+    Optional<DateTime> getDoneUntil(String policy);
+    void setDoneUntil(String policy, DateTime doneUntil);
+
+    Optional<DateTime> getOldestMeterValueTimestamp();
+    Optional<DateTime> getOldestMeterValueRollupTimestamp(int resolutionMinutes);
+
+    /**
+     * Aggregates the raw meter values within [from, to) into buckets of the given resolution. Overwrites existing
+     * buckets, such that it can be repeated for the same interval.
+     *
+     * @return the number of affected rollup rows
+     */
+    int rollupMeterValues(DateTime from, DateTime to, int resolutionMinutes);
+
+    /**
+     * Same as above, but from the rollups of a finer resolution
+     */
+    int rollupMeterValueRollups(DateTime from, DateTime to, int fromResolutionMinutes, int toResolutionMinutes);
+
+    /**
+     * The delete methods delete at most "limit" rows and return the number of deleted rows
+     */
+    int deleteMeterValues(DateTime before, int limit);
+    int deleteMeterValueRollups(int resolutionMinutes, DateTime before, int limit);
+    int deleteConnectorStatuses(DateTime before, int limit);
+}
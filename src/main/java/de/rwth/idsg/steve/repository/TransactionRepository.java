@@ -34,6 +34,8 @@ public interface TransactionRepository {
 
     void writeTransactionsCSV(TransactionQueryForm form, Writer writer);
 
+    void writeMeterValuesCSV(int transactionPk, Writer writer);
+
     List<Integer> getActiveTransactionIds(String chargeBoxId);
 
     TransactionDetails getDetails(int transactionPk, boolean firstArrivingMeterValueIfMultiple);
@@ -0,0 +1,54 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.dto;
+
+import jooq.steve.db.tables.records.OcppTagActivityRecord;
+import lombok.Builder;
+import lombok.Getter;
+import org.joda.time.DateTime;
+
+/**
+ * The part of an OCPP tag that the authorization decision is based on
+ *
+ * @since 18.10.2026
+ */
+@Getter
+@Builder(toBuilder = true)
+public class OcppTagState {
+    private final int ocppTagPk;
+    private final String idTag, parentIdTag;
+    private final DateTime expiryDate;
+    private final int maxActiveTransactionCount, activeTransactionCount;
+
+    public static OcppTagState of(OcppTagActivityRecord r) {
+        return OcppTagState.builder()
+                           .ocppTagPk(r.getOcppTagPk())
+                           .idTag(r.getIdTag())
+                           .parentIdTag(r.getParentIdTag())
+                           .expiryDate(r.getExpiryDate())
+                           .maxActiveTransactionCount(r.getMaxActiveTransactionCount())
+                           .activeTransactionCount(r.getActiveTransactionCount())
+                           .build();
+    }
+
+    public OcppTagState withActiveTransactionDelta(int delta) {
+        return toBuilder().activeTransactionCount(Math.max(activeTransactionCount + delta, 0))
+                          .build();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import com.google.common.cache.Cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A value that is loaded from the database while the entry is invalidated might be the outdated one, and putting it
+ * into the cache afterwards would undo the invalidation. So, every invalidation starts a new generation, and a loaded
+ * value is only cached if no invalidation happened since the load started.
+ *
+ * @since 18.10.2026
+ */
+final class CacheGeneration {
+
+    private final AtomicLong counter = new AtomicLong();
+
+    /**
+     * To be read before the load
+     */
+    long get() {
+        return counter.get();
+    }
+
+    /**
+     * To be called before the entries are removed
+     */
+    void next() {
+        counter.incrementAndGet();
+    }
+
+    <K, V> void putIfCurrent(Cache<K, V> cache, K key, V value, long loadedIn) {
+        if (loadedIn != counter.get()) {
+            return;
+        }
+
+        cache.put(key, value);
+
+        // an invalidation might have slipped in between the check and the put
+        if (loadedIn != counter.get()) {
+            cache.invalidate(key);
+        }
+    }
+}
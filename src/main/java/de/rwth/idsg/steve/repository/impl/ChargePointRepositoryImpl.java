@@ -35,13 +35,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.joda.time.DateTime;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
-import org.jooq.Field;
 import org.jooq.Record1;
 import org.jooq.Record5;
 import org.jooq.Result;
 import org.jooq.SelectConditionStep;
 import org.jooq.SelectQuery;
-import org.jooq.Table;
 import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -56,7 +54,9 @@ import static de.rwth.idsg.steve.utils.CustomDSL.date;
 import static de.rwth.idsg.steve.utils.CustomDSL.includes;
 import static jooq.steve.db.tables.ChargeBox.CHARGE_BOX;
 import static jooq.steve.db.tables.Connector.CONNECTOR;
-import static jooq.steve.db.tables.ConnectorStatus.CONNECTOR_STATUS;
+import static jooq.steve.db.tables.ConnectorStatusLatest.CONNECTOR_STATUS_LATEST;
+import static jooq.steve.db.tables.OcppTag.OCPP_TAG;
+import static jooq.steve.db.tables.Transaction.TRANSACTION;
 
 /**
  * @author Sevket Goekay <goekay@dbis.rwth-aachen.de>
@@ -68,15 +68,27 @@ public class ChargePointRepositoryImpl implements ChargePointRepository {
 
     private final DSLContext ctx;
     private final AddressRepository addressRepository;
+    private final ConnectorPkCache connectorPkCache;
+    private final OcppTagStateCache ocppTagStateCache;
+    private final RegistrationStatusCache registrationStatusCache;
 
     @Autowired
-    public ChargePointRepositoryImpl(DSLContext ctx, AddressRepository addressRepository) {
+    public ChargePointRepositoryImpl(DSLContext ctx, AddressRepository addressRepository,
+                                     ConnectorPkCache connectorPkCache, OcppTagStateCache ocppTagStateCache,
+                                     RegistrationStatusCache registrationStatusCache) {
         this.ctx = ctx;
         this.addressRepository = addressRepository;
+        this.connectorPkCache = connectorPkCache;
+        this.ocppTagStateCache = ocppTagStateCache;
+        this.registrationStatusCache = registrationStatusCache;
     }
 
     @Override
     public Optional<String> getRegistrationStatus(String chargeBoxId) {
+        return registrationStatusCache.get(chargeBoxId, this::selectRegistrationStatus);
+    }
+
+    private Optional<String> selectRegistrationStatus(String chargeBoxId) {
         String status = ctx.select(CHARGE_BOX.REGISTRATION_STATUS)
                            .from(CHARGE_BOX)
                            .where(CHARGE_BOX.CHARGE_BOX_ID.eq(chargeBoxId))
@@ -200,26 +212,6 @@ public class ChargePointRepositoryImpl implements ChargePointRepository {
 
     @Override
     public List<ConnectorStatus> getChargePointConnectorStatus(ConnectorStatusForm form) {
-        // find out the latest timestamp for each connector
-        Field<Integer> t1Pk = CONNECTOR_STATUS.CONNECTOR_PK.as("t1_pk");
-        Field<DateTime> t1TsMax = DSL.max(CONNECTOR_STATUS.STATUS_TIMESTAMP).as("t1_ts_max");
-        Table<?> t1 = ctx.select(t1Pk, t1TsMax)
-                         .from(CONNECTOR_STATUS)
-                         .groupBy(CONNECTOR_STATUS.CONNECTOR_PK)
-                         .asTable("t1");
-
-        // get the status table with latest timestamps only
-        Field<Integer> t2Pk = CONNECTOR_STATUS.CONNECTOR_PK.as("t2_pk");
-        Field<DateTime> t2Ts = CONNECTOR_STATUS.STATUS_TIMESTAMP.as("t2_ts");
-        Field<String> t2Status = CONNECTOR_STATUS.STATUS.as("t2_status");
-        Field<String> t2Error = CONNECTOR_STATUS.ERROR_CODE.as("t2_error");
-        Table<?> t2 = ctx.selectDistinct(t2Pk, t2Ts, t2Status, t2Error)
-                         .from(CONNECTOR_STATUS)
-                         .join(t1)
-                            .on(CONNECTOR_STATUS.CONNECTOR_PK.equal(t1.field(t1Pk)))
-                            .and(CONNECTOR_STATUS.STATUS_TIMESTAMP.equal(t1.field(t1TsMax)))
-                         .asTable("t2");
-
         final Condition chargeBoxCondition;
         if (form == null || form.getChargeBoxId() == null) {
             chargeBoxCondition = DSL.noCondition();
@@ -231,23 +223,24 @@ public class ChargePointRepositoryImpl implements ChargePointRepository {
         if (form == null || form.getStatus() == null) {
             statusCondition = DSL.noCondition();
         } else {
-            statusCondition = t2.field(t2Status).eq(form.getStatus());
+            statusCondition = CONNECTOR_STATUS_LATEST.STATUS.eq(form.getStatus());
         }
 
+        // the latest status of each connector is maintained on write
         return ctx.select(
                         CHARGE_BOX.CHARGE_BOX_PK,
                         CONNECTOR.CHARGE_BOX_ID,
                         CONNECTOR.CONNECTOR_ID,
-                        t2.field(t2Ts),
-                        t2.field(t2Status),
-                        t2.field(t2Error))
-                  .from(t2)
+                        CONNECTOR_STATUS_LATEST.STATUS_TIMESTAMP,
+                        CONNECTOR_STATUS_LATEST.STATUS,
+                        CONNECTOR_STATUS_LATEST.ERROR_CODE)
+                  .from(CONNECTOR_STATUS_LATEST)
                   .join(CONNECTOR)
-                        .on(CONNECTOR.CONNECTOR_PK.eq(t2.field(t2Pk)))
+                        .on(CONNECTOR.CONNECTOR_PK.eq(CONNECTOR_STATUS_LATEST.CONNECTOR_PK))
                   .join(CHARGE_BOX)
                         .on(CHARGE_BOX.CHARGE_BOX_ID.eq(CONNECTOR.CHARGE_BOX_ID))
                   .where(chargeBoxCondition, statusCondition)
-                  .orderBy(t2.field(t2Ts).desc())
+                  .orderBy(CONNECTOR_STATUS_LATEST.STATUS_TIMESTAMP.desc())
                   .fetch()
                   .map(r -> ConnectorStatus.builder()
                                            .chargeBoxPk(r.value1())
@@ -279,11 +272,14 @@ public class ChargePointRepositoryImpl implements ChargePointRepository {
                                                      .collect(Collectors.toList());
 
         ctx.batchInsert(batch).execute();
+
+        // The stations might be cached as unknown
+        registrationStatusCache.invalidate(chargeBoxIdList);
     }
 
     @Override
     public int addChargePoint(ChargePointForm form) {
-        return ctx.transactionResult(configuration -> {
+        int chargeBoxPk = ctx.transactionResult(configuration -> {
             DSLContext ctx = DSL.using(configuration);
             try {
                 Integer addressId = addressRepository.updateOrInsert(ctx, form.getAddress());
@@ -294,41 +290,93 @@ public class ChargePointRepositoryImpl implements ChargePointRepository {
                         form.getChargeBoxId(), e);
             }
         });
+
+        // The station might be cached as unknown
+        registrationStatusCache.invalidate(form.getChargeBoxId());
+        return chargeBoxPk;
     }
 
     @Override
     public void updateChargePoint(ChargePointForm form) {
-        ctx.transaction(configuration -> {
+        String chargeBoxId = ctx.transactionResult(configuration -> {
             DSLContext ctx = DSL.using(configuration);
             try {
                 Integer addressId = addressRepository.updateOrInsert(ctx, form.getAddress());
                 updateChargePointInternal(ctx, form, addressId);
+                return selectChargeBoxId(ctx, form.getChargeBoxPk());
 
             } catch (DataAccessException e) {
                 throw new SteveException("Failed to update the charge point with chargeBoxId '%s'",
                         form.getChargeBoxId(), e);
             }
         });
+
+        if (chargeBoxId != null) {
+            registrationStatusCache.invalidate(chargeBoxId);
+        }
     }
 
     @Override
     public void deleteChargePoint(int chargeBoxPk) {
-        ctx.transaction(configuration -> {
+        String chargeBoxId = ctx.transactionResult(configuration -> {
             DSLContext ctx = DSL.using(configuration);
             try {
+                String id = selectChargeBoxId(ctx, chargeBoxPk);
                 addressRepository.delete(ctx, selectAddressId(chargeBoxPk));
+                releaseActiveTransactions(ctx, id);
                 deleteChargePointInternal(ctx, chargeBoxPk);
+                return id;
 
             } catch (DataAccessException e) {
                 throw new SteveException("Failed to delete the charge point", e);
             }
         });
+
+        // The connectors are deleted with the charge point (ON DELETE CASCADE)
+        if (chargeBoxId != null) {
+            connectorPkCache.invalidate(chargeBoxId);
+            registrationStatusCache.invalidate(chargeBoxId);
+        }
+
+        // The active transaction counts of the tags that were in the deleted transactions changed
+        ocppTagStateCache.invalidateAll();
     }
 
     // -------------------------------------------------------------------------
     // Helpers
     // -------------------------------------------------------------------------
 
+    private static String selectChargeBoxId(DSLContext ctx, int chargeBoxPk) {
+        return ctx.select(CHARGE_BOX.CHARGE_BOX_ID)
+                  .from(CHARGE_BOX)
+                  .where(CHARGE_BOX.CHARGE_BOX_PK.eq(chargeBoxPk))
+                  .fetchOne(CHARGE_BOX.CHARGE_BOX_ID);
+    }
+
+    /**
+     * The transactions are deleted with the charge point (ON DELETE CASCADE), but the active ones are still counted
+     * for their idTags
+     */
+    private static void releaseActiveTransactions(DSLContext ctx, String chargeBoxId) {
+        Map<String, Integer> activeCountPerIdTag =
+                ctx.select(TRANSACTION.ID_TAG, DSL.count())
+                   .from(TRANSACTION)
+                   .join(CONNECTOR)
+                     .on(TRANSACTION.CONNECTOR_PK.equal(CONNECTOR.CONNECTOR_PK))
+                     .and(CONNECTOR.CHARGE_BOX_ID.equal(chargeBoxId))
+                   .where(TRANSACTION.STOP_TIMESTAMP.isNull())
+                   .groupBy(TRANSACTION.ID_TAG)
+                   .fetchMap(TRANSACTION.ID_TAG, DSL.count());
+
+        activeCountPerIdTag.forEach(
+                (idTag, count) -> ctx.update(OCPP_TAG)
+                                     .set(OCPP_TAG.ACTIVE_TRANSACTION_COUNT,
+                                          DSL.greatest(OCPP_TAG.ACTIVE_TRANSACTION_COUNT.minus(count), DSL.inline(0)))
+                                     .where(OCPP_TAG.ID_TAG.equal(idTag))
+                                     .execute()
+        );
+    }
+
     private SelectConditionStep<Record1<Integer>> selectAddressId(int chargeBoxPk) {
         return ctx.select(CHARGE_BOX.ADDRESS_PK)
                   .from(CHARGE_BOX)
@@ -0,0 +1,115 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import static jooq.steve.db.tables.Connector.CONNECTOR;
+
+/**
+ * The connectors of a station never change their primary key, but almost every OCPP message needs it. Instead of
+ * looking it up with every insert, we cache (chargeBoxId, connectorId) -> connectorPk.
+ *
+ * The connectors are inserted and looked up with the non-transactional context on purpose: If the transaction of the
+ * caller is rolled back, the cache must not hold the key of a connector that does not exist. Connectors are only
+ * deleted together with their charge point (ON DELETE CASCADE), which is why the charge point repository has to
+ * invalidate the entries of a deleted charge point. A key that was looked up while the charge point was deleted is
+ * not cached.
+ *
+ * @since 18.10.2026
+ */
+@Slf4j
+@Component
+public class ConnectorPkCache {
+
+    private static final int MAX_SIZE = 100_000;
+
+    private final DSLContext ctx;
+
+    private final Cache<Key, Integer> cache = CacheBuilder.newBuilder()
+                                                          .maximumSize(MAX_SIZE)
+                                                          .build();
+
+    private final CacheGeneration generation = new CacheGeneration();
+
+    @Autowired
+    public ConnectorPkCache(DSLContext ctx) {
+        this.ctx = ctx;
+    }
+
+    /**
+     * If the connector information was not received before, inserts it.
+     */
+    public int getOrInsert(String chargeBoxId, int connectorId) {
+        Key key = new Key(chargeBoxId, connectorId);
+
+        Integer connectorPk = cache.getIfPresent(key);
+        if (connectorPk == null) {
+            long generationBefore = generation.get();
+            insertIgnoreConnector(chargeBoxId, connectorId);
+            connectorPk = getConnectorPk(chargeBoxId, connectorId);
+            generation.putIfCurrent(cache, key, connectorPk, generationBefore);
+        }
+        return connectorPk;
+    }
+
+    public void invalidate(String chargeBoxId) {
+        generation.next();
+        cache.asMap().keySet().removeIf(key -> key.chargeBoxId.equals(chargeBoxId));
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private void insertIgnoreConnector(String chargeBoxId, int connectorId) {
+        int count = ctx.insertInto(CONNECTOR,
+                            CONNECTOR.CHARGE_BOX_ID, CONNECTOR.CONNECTOR_ID)
+                       .values(chargeBoxId, connectorId)
+                       .onDuplicateKeyIgnore() // Important detail
+                       .execute();
+
+        if (count == 1) {
+            log.info("The connector {}/{} is NEW, and inserted into DB.", chargeBoxId, connectorId);
+        }
+    }
+
+    private int getConnectorPk(String chargeBoxId, int connectorId) {
+        return ctx.select(CONNECTOR.CONNECTOR_PK)
+                  .from(CONNECTOR)
+                  .where(CONNECTOR.CHARGE_BOX_ID.equal(chargeBoxId))
+                  .and(CONNECTOR.CONNECTOR_ID.equal(connectorId))
+                  .fetchOne()
+                  .value1();
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class Key {
+        private final String chargeBoxId;
+        private final int connectorId;
+    }
+}
@@ -19,15 +19,18 @@
 package de.rwth.idsg.steve.repository.impl;
 
 import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.Striped;
 import de.rwth.idsg.steve.SteveException;
 import de.rwth.idsg.steve.repository.OcppServerRepository;
 import de.rwth.idsg.steve.repository.ReservationRepository;
 import de.rwth.idsg.steve.repository.dto.InsertConnectorStatusParams;
+import de.rwth.idsg.steve.repository.dto.InsertMeterValuesParams;
 import de.rwth.idsg.steve.repository.dto.InsertTransactionParams;
 import de.rwth.idsg.steve.repository.dto.TransactionStatusUpdate;
 import de.rwth.idsg.steve.repository.dto.UpdateChargeboxParams;
 import de.rwth.idsg.steve.repository.dto.UpdateTransactionParams;
+import de.rwth.idsg.steve.service.StatisticsService;
 import jooq.steve.db.enums.TransactionStopEventActor;
 import jooq.steve.db.enums.TransactionStopFailedEventActor;
 import jooq.steve.db.tables.records.ConnectorMeterValueRecord;
@@ -36,15 +39,22 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ocpp.cs._2015._10.MeterValue;
 import org.joda.time.DateTime;
+import org.jooq.CaseValueStep;
+import org.jooq.CaseWhenStep;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.InsertSetMoreStep;
 import org.jooq.Record1;
-import org.jooq.SelectConditionStep;
+import org.jooq.Record2;
 import org.jooq.impl.DSL;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
@@ -52,10 +62,12 @@ import static jooq.steve.db.tables.ChargeBox.CHARGE_BOX;
 import static jooq.steve.db.tables.Connector.CONNECTOR;
 import static jooq.steve.db.tables.ConnectorMeterValue.CONNECTOR_METER_VALUE;
 import static jooq.steve.db.tables.ConnectorStatus.CONNECTOR_STATUS;
+import static jooq.steve.db.tables.ConnectorStatusLatest.CONNECTOR_STATUS_LATEST;
 import static jooq.steve.db.tables.OcppTag.OCPP_TAG;
 import static jooq.steve.db.tables.TransactionStart.TRANSACTION_START;
 import static jooq.steve.db.tables.TransactionStop.TRANSACTION_STOP;
 import static jooq.steve.db.tables.TransactionStopFailed.TRANSACTION_STOP_FAILED;
+import static jooq.steve.db.tables.TransactionStopLatest.TRANSACTION_STOP_LATEST;
 
 /**
  * This class has methods for database access that are used by the OCPP service.
@@ -71,6 +83,12 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
 
     @Autowired private DSLContext ctx;
     @Autowired private ReservationRepository reservationRepository;
+    @Autowired private ConnectorPkCache connectorPkCache;
+    @Autowired private OcppTagStateCache ocppTagStateCache;
+    @Autowired private StatisticsService statisticsService;
+
+    private static final int HEARTBEAT_UPDATE_CHUNK_SIZE = 500;
+    private static final int METER_VALUE_INSERT_CHUNK_SIZE = 1_000;
 
     private final Striped<Lock> transactionTableLocks = Striped.lock(16);
 
@@ -118,32 +136,48 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
            .execute();
     }
 
+    /**
+     * One UPDATE with a CASE expression per chunk of stations, instead of one UPDATE per station:
+     *
+     * UPDATE charge_box
+     * SET last_heartbeat_timestamp = CASE charge_box_id WHEN 'a' THEN ts1 WHEN 'b' THEN ts2 ... END
+     * WHERE charge_box_id IN ('a', 'b', ...)
+     */
     @Override
-    public void updateChargeboxHeartbeat(String chargeBoxIdentity, DateTime ts) {
-        ctx.update(CHARGE_BOX)
-           .set(CHARGE_BOX.LAST_HEARTBEAT_TIMESTAMP, ts)
-           .where(CHARGE_BOX.CHARGE_BOX_ID.equal(chargeBoxIdentity))
-           .execute();
+    public void updateChargeboxHeartbeats(Map<String, DateTime> chargeBoxIdTimestampMap) {
+        List<String> chargeBoxIds = new ArrayList<>(chargeBoxIdTimestampMap.keySet());
+
+        for (List<String> chunk : Lists.partition(chargeBoxIds, HEARTBEAT_UPDATE_CHUNK_SIZE)) {
+            CaseValueStep<String> caseStep = DSL.choose(CHARGE_BOX.CHARGE_BOX_ID);
+            CaseWhenStep<String, DateTime> whenStep = null;
+
+            for (String chargeBoxId : chunk) {
+                DateTime value = chargeBoxIdTimestampMap.get(chargeBoxId);
+                Field<DateTime> ts = DSL.val(value, CHARGE_BOX.LAST_HEARTBEAT_TIMESTAMP);
+                whenStep = (whenStep == null) ? caseStep.when(chargeBoxId, ts) : whenStep.when(chargeBoxId, ts);
+            }
+
+            ctx.update(CHARGE_BOX)
+               .set(CHARGE_BOX.LAST_HEARTBEAT_TIMESTAMP, whenStep.otherwise(CHARGE_BOX.LAST_HEARTBEAT_TIMESTAMP))
+               .where(CHARGE_BOX.CHARGE_BOX_ID.in(chunk))
+               .execute();
+        }
     }
 
     @Override
     public void insertConnectorStatus(InsertConnectorStatusParams p) {
+        // Step 1
+        int connectorPk = connectorPkCache.getOrInsert(p.getChargeBoxId(), p.getConnectorId());
+
         ctx.transaction(configuration -> {
             DSLContext ctx = DSL.using(configuration);
 
-            // Step 1
-            insertIgnoreConnector(ctx, p.getChargeBoxId(), p.getConnectorId());
-
             // -------------------------------------------------------------------------
             // Step 2: We store a log of connector statuses
             // -------------------------------------------------------------------------
 
             ctx.insertInto(CONNECTOR_STATUS)
-               .set(CONNECTOR_STATUS.CONNECTOR_PK, DSL.select(CONNECTOR.CONNECTOR_PK)
-                                                      .from(CONNECTOR)
-                                                      .where(CONNECTOR.CHARGE_BOX_ID.equal(p.getChargeBoxId()))
-                                                      .and(CONNECTOR.CONNECTOR_ID.equal(p.getConnectorId()))
-               )
+               .set(CONNECTOR_STATUS.CONNECTOR_PK, connectorPk)
                .set(CONNECTOR_STATUS.STATUS_TIMESTAMP, p.getTimestamp())
                .set(CONNECTOR_STATUS.STATUS, p.getStatus())
                .set(CONNECTOR_STATUS.ERROR_CODE, p.getErrorCode())
@@ -152,8 +186,18 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
                .set(CONNECTOR_STATUS.VENDOR_ERROR_CODE, p.getVendorErrorCode())
                .execute();
 
-            log.debug("Stored a new connector status for {}/{}.", p.getChargeBoxId(), p.getConnectorId());
+            // -------------------------------------------------------------------------
+            // Step 3: And the current status separately
+            // -------------------------------------------------------------------------
+
+            upsertLatestConnectorStatus(ctx, DSL.val(connectorPk), p.getTimestamp(), p.getStatus(), p.getErrorCode(),
+                    p.getErrorInfo(), p.getVendorId(), p.getVendorErrorCode());
         });
+
+        statisticsService.connectorStatusChanged(p.getChargeBoxId(), p.getConnectorId(), p.getStatus(),
+                p.getErrorCode(), p.getTimestamp());
+
+        log.debug("Stored a new connector status for {}/{}.", p.getChargeBoxId(), p.getConnectorId());
     }
 
     @Override
@@ -166,8 +210,7 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
             try {
                 DSLContext ctx = DSL.using(configuration);
 
-                insertIgnoreConnector(ctx, chargeBoxIdentity, connectorId);
-                int connectorPk = getConnectorPkFromConnector(ctx, chargeBoxIdentity, connectorId);
+                int connectorPk = connectorPkCache.getOrInsert(chargeBoxIdentity, connectorId);
                 batchInsertMeterValues(ctx, list, connectorPk, transactionId);
             } catch (Exception e) {
                 log.error("Exception occurred", e);
@@ -199,20 +242,45 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
         });
     }
 
+    /**
+     * The messages of many stations in one transaction. The rows are inserted with multi-row INSERT statements.
+     */
     @Override
-    public int insertTransaction(InsertTransactionParams p) {
+    public void insertMeterValues(List<InsertMeterValuesParams> batch) {
+        if (CollectionUtils.isEmpty(batch)) {
+            return;
+        }
 
-        SelectConditionStep<Record1<Integer>> connectorPkQuery =
-                DSL.select(CONNECTOR.CONNECTOR_PK)
-                   .from(CONNECTOR)
-                   .where(CONNECTOR.CHARGE_BOX_ID.equal(p.getChargeBoxId()))
-                   .and(CONNECTOR.CONNECTOR_ID.equal(p.getConnectorId()));
+        ctx.transaction(configuration -> {
+            DSLContext ctx = DSL.using(configuration);
+
+            List<ConnectorMeterValueRecord> records = new ArrayList<>();
+
+            for (InsertMeterValuesParams p : batch) {
+                int connectorPk = connectorPkCache.getOrInsert(p.getChargeBoxId(), p.getConnectorId());
+                records.addAll(toRecords(ctx, p.getMeterValues(), connectorPk, p.getTransactionId()));
+            }
+
+            for (List<ConnectorMeterValueRecord> chunk : Lists.partition(records, METER_VALUE_INSERT_CHUNK_SIZE)) {
+                InsertSetMoreStep<ConnectorMeterValueRecord> insert = null;
+                for (ConnectorMeterValueRecord r : chunk) {
+                    insert = (insert == null)
+                            ? ctx.insertInto(CONNECTOR_METER_VALUE).set(r)
+                            : insert.newRecord().set(r);
+                }
+                insert.execute();
+            }
+        });
+    }
+
+    @Override
+    public int insertTransaction(InsertTransactionParams p) {
 
         // -------------------------------------------------------------------------
         // Step 1: Insert connector and idTag, if they are new to us
         // -------------------------------------------------------------------------
 
-        insertIgnoreConnector(ctx, p.getChargeBoxId(), p.getConnectorId());
+        int connectorPk = connectorPkCache.getOrInsert(p.getChargeBoxId(), p.getConnectorId());
 
         // it is important to insert idTag before transaction, since the transaction table references it
         boolean unknownTagInserted = insertIgnoreIdTag(ctx, p);
@@ -221,13 +289,15 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
         // Step 2: Insert transaction if it does not exist already
         // -------------------------------------------------------------------------
 
-        TransactionDataHolder data = insertIgnoreTransaction(p, connectorPkQuery);
+        TransactionDataHolder data = insertIgnoreTransaction(p, connectorPk);
         int transactionId = data.transactionId;
 
         if (data.existsAlready) {
             return transactionId;
         }
 
+        statisticsService.transactionStarted();
+
         if (unknownTagInserted) {
             log.warn("The transaction '{}' contains an unknown idTag '{}' which was inserted into DB "
                     + "to prevent information loss and has been blocked", transactionId, p.getIdTag());
@@ -238,7 +308,7 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
         // -------------------------------------------------------------------------
 
         if (p.isSetReservationId()) {
-            reservationRepository.used(connectorPkQuery, p.getIdTag(), p.getReservationId(), transactionId);
+            reservationRepository.used(connectorPk, p.getIdTag(), p.getReservationId(), transactionId);
         }
 
         // -------------------------------------------------------------------------
@@ -246,7 +316,8 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
         // -------------------------------------------------------------------------
 
         if (shouldInsertConnectorStatusAfterTransactionMsg(p.getChargeBoxId())) {
-            insertConnectorStatus(ctx, connectorPkQuery, p.getStartTimestamp(), p.getStatusUpdate());
+            insertConnectorStatus(ctx, p.getChargeBoxId(), connectorPk, p.getConnectorId(), p.getStartTimestamp(),
+                    p.getStatusUpdate());
         }
 
         return transactionId;
@@ -261,14 +332,23 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
 
         // JOOQ will throw an exception, if something goes wrong
         try {
-            ctx.insertInto(TRANSACTION_STOP)
-               .set(TRANSACTION_STOP.TRANSACTION_PK, p.getTransactionId())
-               .set(TRANSACTION_STOP.EVENT_TIMESTAMP, p.getEventTimestamp())
-               .set(TRANSACTION_STOP.EVENT_ACTOR, p.getEventActor())
-               .set(TRANSACTION_STOP.STOP_TIMESTAMP, p.getStopTimestamp())
-               .set(TRANSACTION_STOP.STOP_VALUE, p.getStopMeterValue())
-               .set(TRANSACTION_STOP.STOP_REASON, p.getStopReason())
-               .execute();
+            String idTag = ctx.select(TRANSACTION_START.ID_TAG)
+                              .from(TRANSACTION_START)
+                              .where(TRANSACTION_START.TRANSACTION_PK.equal(p.getTransactionId()))
+                              .fetchOne(TRANSACTION_START.ID_TAG);
+
+            if (idTag == null) {
+                throw new SteveException("There is no transaction with id '%s'", p.getTransactionId());
+            }
+
+            boolean ended = ocppTagStateCache.changeActiveTransactions(idTag,
+                    () -> insertTransactionStop(p, idTag),
+                    isEnded -> isEnded ? -1 : 0);
+
+            if (ended) {
+                statisticsService.transactionStopped();
+            }
+
         } catch (Exception e) {
             log.error("Exception occurred", e);
             tryInsertingFailed(p, e);
@@ -280,12 +360,17 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
         // -------------------------------------------------------------------------
 
         if (shouldInsertConnectorStatusAfterTransactionMsg(p.getChargeBoxId())) {
-            SelectConditionStep<Record1<Integer>> connectorPkQuery =
-                    DSL.select(TRANSACTION_START.CONNECTOR_PK)
+            Record2<Integer, Integer> connector =
+                    ctx.select(CONNECTOR.CONNECTOR_PK, CONNECTOR.CONNECTOR_ID)
                        .from(TRANSACTION_START)
-                       .where(TRANSACTION_START.TRANSACTION_PK.equal(p.getTransactionId()));
+                       .join(CONNECTOR).on(CONNECTOR.CONNECTOR_PK.eq(TRANSACTION_START.CONNECTOR_PK))
+                       .where(TRANSACTION_START.TRANSACTION_PK.equal(p.getTransactionId()))
+                       .fetchOne();
 
-            insertConnectorStatus(ctx, connectorPkQuery, p.getStopTimestamp(), p.getStatusUpdate());
+            if (connector != null) {
+                insertConnectorStatus(ctx, p.getChargeBoxId(), connector.value1(), connector.value2(),
+                        p.getStopTimestamp(), p.getStatusUpdate());
+            }
         }
     }
 
@@ -304,14 +389,13 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
      * problems the response of StartTransaction could not be delivered and station tries again later), we do not want
      * to insert this into database multiple times.
      */
-    private TransactionDataHolder insertIgnoreTransaction(InsertTransactionParams p,
-                                                          SelectConditionStep<Record1<Integer>> connectorPkQuery) {
+    private TransactionDataHolder insertIgnoreTransaction(InsertTransactionParams p, int connectorPk) {
         Lock l = transactionTableLocks.get(p.getChargeBoxId());
         l.lock();
         try {
             Record1<Integer> r = ctx.select(TRANSACTION_START.TRANSACTION_PK)
                                     .from(TRANSACTION_START)
-                                    .where(TRANSACTION_START.CONNECTOR_PK.eq(connectorPkQuery))
+                                    .where(TRANSACTION_START.CONNECTOR_PK.eq(connectorPk))
                                     .and(TRANSACTION_START.ID_TAG.eq(p.getIdTag()))
                                     .and(TRANSACTION_START.START_TIMESTAMP.eq(p.getStartTimestamp()))
                                     .and(TRANSACTION_START.START_VALUE.eq(p.getStartMeterValue()))
@@ -321,9 +405,21 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
                 return new TransactionDataHolder(true, r.value1());
             }
 
+            return ocppTagStateCache.changeActiveTransactions(p.getIdTag(),
+                    () -> insertTransactionStart(p, connectorPk),
+                    data -> 1);
+        } finally {
+            l.unlock();
+        }
+    }
+
+    private TransactionDataHolder insertTransactionStart(InsertTransactionParams p, int connectorPk) {
+        return ctx.transactionResult(configuration -> {
+            DSLContext ctx = DSL.using(configuration);
+
             Integer transactionId = ctx.insertInto(TRANSACTION_START)
                                        .set(TRANSACTION_START.EVENT_TIMESTAMP, p.getEventTimestamp())
-                                       .set(TRANSACTION_START.CONNECTOR_PK, connectorPkQuery)
+                                       .set(TRANSACTION_START.CONNECTOR_PK, connectorPk)
                                        .set(TRANSACTION_START.ID_TAG, p.getIdTag())
                                        .set(TRANSACTION_START.START_TIMESTAMP, p.getStartTimestamp())
                                        .set(TRANSACTION_START.START_VALUE, p.getStartMeterValue())
@@ -336,10 +432,76 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
                 throw new SteveException("Failed to INSERT transaction into database");
             }
 
+            updateActiveTransactionCount(ctx, p.getIdTag(), 1);
             return new TransactionDataHolder(false, transactionId);
-        } finally {
-            l.unlock();
+        });
+    }
+
+    /**
+     * @return whether this stop event ended the transaction
+     */
+    private boolean insertTransactionStop(UpdateTransactionParams p, String idTag) {
+        return ctx.transactionResult(configuration -> {
+            DSLContext ctx = DSL.using(configuration);
+
+            // Lock the transaction first, such that concurrent stop events of it are serialized
+            ctx.selectOne()
+               .from(TRANSACTION_START)
+               .where(TRANSACTION_START.TRANSACTION_PK.equal(p.getTransactionId()))
+               .forUpdate()
+               .execute();
+
+            ctx.insertInto(TRANSACTION_STOP)
+               .set(TRANSACTION_STOP.TRANSACTION_PK, p.getTransactionId())
+               .set(TRANSACTION_STOP.EVENT_TIMESTAMP, p.getEventTimestamp())
+               .set(TRANSACTION_STOP.EVENT_ACTOR, p.getEventActor())
+               .set(TRANSACTION_STOP.STOP_TIMESTAMP, p.getStopTimestamp())
+               .set(TRANSACTION_STOP.STOP_VALUE, p.getStopMeterValue())
+               .set(TRANSACTION_STOP.STOP_REASON, p.getStopReason())
+               .execute();
+
+            return updateLatestTransactionStop(ctx, p, idTag);
+        });
+    }
+
+    /**
+     * There can be multiple stop events for a transaction (e.g. it is stopped manually, and the station sends its
+     * StopTransaction later), of which the most recent one counts. The first stop event ends the transaction, so that
+     * the idTag has one active transaction less.
+     *
+     * @return whether this stop event ended the transaction
+     */
+    private static boolean updateLatestTransactionStop(DSLContext ctx, UpdateTransactionParams p, String idTag) {
+        DateTime latest = ctx.select(TRANSACTION_STOP_LATEST.EVENT_TIMESTAMP)
+                             .from(TRANSACTION_STOP_LATEST)
+                             .where(TRANSACTION_STOP_LATEST.TRANSACTION_PK.equal(p.getTransactionId()))
+                             .fetchOne(TRANSACTION_STOP_LATEST.EVENT_TIMESTAMP);
+
+        if (latest == null) {
+            ctx.insertInto(TRANSACTION_STOP_LATEST)
+               .set(TRANSACTION_STOP_LATEST.TRANSACTION_PK, p.getTransactionId())
+               .set(TRANSACTION_STOP_LATEST.EVENT_TIMESTAMP, p.getEventTimestamp())
+               .execute();
+
+            updateActiveTransactionCount(ctx, idTag, -1);
+            return true;
+        }
+
+        if (p.getEventTimestamp().isAfter(latest)) {
+            ctx.update(TRANSACTION_STOP_LATEST)
+               .set(TRANSACTION_STOP_LATEST.EVENT_TIMESTAMP, p.getEventTimestamp())
+               .where(TRANSACTION_STOP_LATEST.TRANSACTION_PK.equal(p.getTransactionId()))
+               .execute();
         }
+        return false;
+    }
+
+    private static void updateActiveTransactionCount(DSLContext ctx, String idTag, int delta) {
+        ctx.update(OCPP_TAG)
+           .set(OCPP_TAG.ACTIVE_TRANSACTION_COUNT,
+                DSL.greatest(OCPP_TAG.ACTIVE_TRANSACTION_COUNT.plus(delta), DSL.inline(0)))
+           .where(OCPP_TAG.ID_TAG.equal(idTag))
+           .execute();
     }
 
     /**
@@ -352,34 +514,66 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
      * and we have a "more recent" status, it will still be the current status.
      */
     private void insertConnectorStatus(DSLContext ctx,
-                                       SelectConditionStep<Record1<Integer>> connectorPkQuery,
+                                       String chargeBoxId,
+                                       int connectorPk,
+                                       int connectorId,
                                        DateTime timestamp,
                                        TransactionStatusUpdate statusUpdate) {
         try {
             ctx.insertInto(CONNECTOR_STATUS)
-               .set(CONNECTOR_STATUS.CONNECTOR_PK, connectorPkQuery)
+               .set(CONNECTOR_STATUS.CONNECTOR_PK, connectorPk)
                .set(CONNECTOR_STATUS.STATUS_TIMESTAMP, timestamp)
                .set(CONNECTOR_STATUS.STATUS, statusUpdate.getStatus())
                .set(CONNECTOR_STATUS.ERROR_CODE, statusUpdate.getErrorCode())
                .execute();
+
+            upsertLatestConnectorStatus(ctx, DSL.val(connectorPk), timestamp, statusUpdate.getStatus(),
+                    statusUpdate.getErrorCode(), null, null, null);
+
+            statisticsService.connectorStatusChanged(chargeBoxId, connectorId, statusUpdate.getStatus(),
+                    statusUpdate.getErrorCode(), timestamp);
         } catch (Exception e) {
             log.error("Exception occurred", e);
         }
     }
 
     /**
-     * If the connector information was not received before, insert it. Otherwise, ignore.
+     * The latest timestamp wins: An existing row is only changed, if the new status is not older than the stored one.
+     * This way, the order in which the statuses arrive does not matter.
+     *
+     * The timestamp has to be set last, since MySQL uses the already updated values of a row in the following
+     * assignments of ON DUPLICATE KEY UPDATE.
      */
-    private void insertIgnoreConnector(DSLContext ctx, String chargeBoxIdentity, int connectorId) {
-        int count = ctx.insertInto(CONNECTOR,
-                            CONNECTOR.CHARGE_BOX_ID, CONNECTOR.CONNECTOR_ID)
-                       .values(chargeBoxIdentity, connectorId)
-                       .onDuplicateKeyIgnore() // Important detail
-                       .execute();
-
-        if (count == 1) {
-            log.info("The connector {}/{} is NEW, and inserted into DB.", chargeBoxIdentity, connectorId);
+    private static void upsertLatestConnectorStatus(DSLContext ctx, Field<Integer> connectorPk, DateTime timestamp,
+                                                    String status, String errorCode, String errorInfo,
+                                                    String vendorId, String vendorErrorCode) {
+        Condition notOlder = CONNECTOR_STATUS_LATEST.STATUS_TIMESTAMP.isNull();
+        if (timestamp != null) {
+            notOlder = notOlder.or(CONNECTOR_STATUS_LATEST.STATUS_TIMESTAMP.le(timestamp));
         }
+
+        ctx.insertInto(CONNECTOR_STATUS_LATEST)
+           .set(CONNECTOR_STATUS_LATEST.CONNECTOR_PK, connectorPk)
+           .set(CONNECTOR_STATUS_LATEST.STATUS_TIMESTAMP, timestamp)
+           .set(CONNECTOR_STATUS_LATEST.STATUS, status)
+           .set(CONNECTOR_STATUS_LATEST.ERROR_CODE, errorCode)
+           .set(CONNECTOR_STATUS_LATEST.ERROR_INFO, errorInfo)
+           .set(CONNECTOR_STATUS_LATEST.VENDOR_ID, vendorId)
+           .set(CONNECTOR_STATUS_LATEST.VENDOR_ERROR_CODE, vendorErrorCode)
+           .onDuplicateKeyUpdate()
+           .set(CONNECTOR_STATUS_LATEST.STATUS, ifTrue(notOlder, status, CONNECTOR_STATUS_LATEST.STATUS))
+           .set(CONNECTOR_STATUS_LATEST.ERROR_CODE, ifTrue(notOlder, errorCode, CONNECTOR_STATUS_LATEST.ERROR_CODE))
+           .set(CONNECTOR_STATUS_LATEST.ERROR_INFO, ifTrue(notOlder, errorInfo, CONNECTOR_STATUS_LATEST.ERROR_INFO))
+           .set(CONNECTOR_STATUS_LATEST.VENDOR_ID, ifTrue(notOlder, vendorId, CONNECTOR_STATUS_LATEST.VENDOR_ID))
+           .set(CONNECTOR_STATUS_LATEST.VENDOR_ERROR_CODE,
+                   ifTrue(notOlder, vendorErrorCode, CONNECTOR_STATUS_LATEST.VENDOR_ERROR_CODE))
+           .set(CONNECTOR_STATUS_LATEST.STATUS_TIMESTAMP,
+                   ifTrue(notOlder, timestamp, CONNECTOR_STATUS_LATEST.STATUS_TIMESTAMP))
+           .execute();
+    }
+
+    private static <T> Field<T> ifTrue(Condition condition, T value, Field<T> otherwise) {
+        return DSL.when(condition, DSL.val(value, otherwise)).otherwise(otherwise);
     }
 
     /**
@@ -411,35 +605,28 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
         return (r != null) && (r.value1() == 1);
     }
 
-    private int getConnectorPkFromConnector(DSLContext ctx, String chargeBoxIdentity, int connectorId) {
-        return ctx.select(CONNECTOR.CONNECTOR_PK)
-                  .from(CONNECTOR)
-                  .where(CONNECTOR.CHARGE_BOX_ID.equal(chargeBoxIdentity))
-                  .and(CONNECTOR.CONNECTOR_ID.equal(connectorId))
-                  .fetchOne()
-                  .value1();
+    private void batchInsertMeterValues(DSLContext ctx, List<MeterValue> list, int connectorPk, Integer transactionId) {
+        ctx.batchInsert(toRecords(ctx, list, connectorPk, transactionId)).execute();
     }
 
-    private void batchInsertMeterValues(DSLContext ctx, List<MeterValue> list, int connectorPk, Integer transactionId) {
-        List<ConnectorMeterValueRecord> batch =
-                list.stream()
-                    .flatMap(t -> t.getSampledValue()
-                                   .stream()
-                                   .map(k -> ctx.newRecord(CONNECTOR_METER_VALUE)
-                                                .setConnectorPk(connectorPk)
-                                                .setTransactionPk(transactionId)
-                                                .setValueTimestamp(t.getTimestamp())
-                                                .setValue(k.getValue())
-                                                // The following are optional fields!
-                                                .setReadingContext(k.isSetContext() ? k.getContext().value() : null)
-                                                .setFormat(k.isSetFormat() ? k.getFormat().value() : null)
-                                                .setMeasurand(k.isSetMeasurand() ? k.getMeasurand().value() : null)
-                                                .setLocation(k.isSetLocation() ? k.getLocation().value() : null)
-                                                .setUnit(k.isSetUnit() ? k.getUnit().value() : null)
-                                                .setPhase(k.isSetPhase() ? k.getPhase().value() : null)))
-                    .collect(Collectors.toList());
-
-        ctx.batchInsert(batch).execute();
+    private static List<ConnectorMeterValueRecord> toRecords(DSLContext ctx, List<MeterValue> list, int connectorPk,
+                                                             Integer transactionId) {
+        return list.stream()
+                   .flatMap(t -> t.getSampledValue()
+                                  .stream()
+                                  .map(k -> ctx.newRecord(CONNECTOR_METER_VALUE)
+                                               .setConnectorPk(connectorPk)
+                                               .setTransactionPk(transactionId)
+                                               .setValueTimestamp(t.getTimestamp())
+                                               .setValue(k.getValue())
+                                               // The following are optional fields!
+                                               .setReadingContext(k.isSetContext() ? k.getContext().value() : null)
+                                               .setFormat(k.isSetFormat() ? k.getFormat().value() : null)
+                                               .setMeasurand(k.isSetMeasurand() ? k.getMeasurand().value() : null)
+                                               .setLocation(k.isSetLocation() ? k.getLocation().value() : null)
+                                               .setUnit(k.isSetUnit() ? k.getUnit().value() : null)
+                                               .setPhase(k.isSetPhase() ? k.getPhase().value() : null)))
+                   .collect(Collectors.toList());
     }
 
     private void tryInsertingFailed(UpdateTransactionParams p, Exception e) {
@@ -27,6 +27,7 @@ import jooq.steve.db.tables.OcppTagActivity;
 import jooq.steve.db.tables.records.OcppTagActivityRecord;
 import jooq.steve.db.tables.records.OcppTagRecord;
 import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
 import org.joda.time.DateTime;
 import org.jooq.DSLContext;
 import org.jooq.JoinType;
@@ -57,10 +58,12 @@ import static jooq.steve.db.tables.OcppTagActivity.OCPP_TAG_ACTIVITY;
 public class OcppTagRepositoryImpl implements OcppTagRepository {
 
     private final DSLContext ctx;
+    private final OcppTagStateCache ocppTagStateCache;
 
     @Autowired
-    public OcppTagRepositoryImpl(DSLContext ctx) {
+    public OcppTagRepositoryImpl(DSLContext ctx, OcppTagStateCache ocppTagStateCache) {
         this.ctx = ctx;
+        this.ocppTagStateCache = ocppTagStateCache;
     }
 
     @Override
@@ -210,6 +213,7 @@ public class OcppTagRepositoryImpl implements OcppTagRepository {
 
     @Override
     public void updateOcppTag(OcppTagForm u) {
+        String idTag = getIdTag(u.getOcppTagPk());
         try {
             ctx.update(OCPP_TAG)
                .set(OCPP_TAG.PARENT_ID_TAG, u.getParentIdTag())
@@ -220,17 +224,39 @@ public class OcppTagRepositoryImpl implements OcppTagRepository {
                .execute();
         } catch (DataAccessException e) {
             throw new SteveException("Execution of updateOcppTag for idTag '%s' FAILED.", u.getIdTag(), e);
+        } finally {
+            invalidateCache(idTag);
         }
     }
 
     @Override
     public void deleteOcppTag(int ocppTagPk) {
+        String idTag = getIdTag(ocppTagPk);
         try {
             ctx.delete(OCPP_TAG)
                .where(OCPP_TAG.OCPP_TAG_PK.equal(ocppTagPk))
                .execute();
         } catch (DataAccessException e) {
             throw new SteveException("Execution of deleteOcppTag for idTag FAILED.", e);
+        } finally {
+            invalidateCache(idTag);
+        }
+    }
+
+    /**
+     * The idTag of a tag cannot be changed, so the one read before the change identifies the cached entry
+     */
+    @Nullable
+    private String getIdTag(int ocppTagPk) {
+        return ctx.select(OCPP_TAG.ID_TAG)
+                  .from(OCPP_TAG)
+                  .where(OCPP_TAG.OCPP_TAG_PK.equal(ocppTagPk))
+                  .fetchOne(OCPP_TAG.ID_TAG);
+    }
+
+    private void invalidateCache(@Nullable String idTag) {
+        if (idTag != null) {
+            ocppTagStateCache.invalidate(idTag);
         }
     }
 
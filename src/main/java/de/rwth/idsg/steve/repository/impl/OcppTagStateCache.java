@@ -0,0 +1,131 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.Striped;
+import de.rwth.idsg.steve.repository.dto.OcppTagState;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Every Authorize, StartTransaction and StopTransaction needs the state of the OCPP tag to decide about the
+ * authorization. We cache it per idTag, and keep it in sync with the database:
+ *
+ * 1) The entry of a tag is dropped, when the tag is changed or deleted.
+ * 2) The active transaction count of an entry is adjusted, when a transaction of the tag is started or stopped. The
+ * entry of the tag is not loaded while the database is changed, otherwise the change could be counted twice.
+ *
+ * A tag that is changed in the database directly (i.e. not via SteVe) is picked up when its entry expires, at most
+ * 10 minutes after it was loaded.
+ *
+ * @since 18.10.2026
+ */
+@Component
+public class OcppTagStateCache {
+
+    private static final int MAX_SIZE = 100_000;
+    private static final long EXPIRE_AFTER_WRITE_MINUTES = 10;
+
+    private final Cache<String, OcppTagState> cache =
+            CacheBuilder.newBuilder()
+                        .maximumSize(MAX_SIZE)
+                        .expireAfterWrite(EXPIRE_AFTER_WRITE_MINUTES, TimeUnit.MINUTES)
+                        .recordStats()
+                        .build();
+
+    // Serializes the loading of an entry with the changes of its active transaction count
+    private final Striped<Lock> idTagLocks = Striped.lock(64);
+
+    private final CacheGeneration generation = new CacheGeneration();
+
+    /**
+     * Unknown tags are not cached, such that a tag is found as soon as it is added
+     */
+    @Nullable
+    public OcppTagState get(String idTag, Function<String, OcppTagState> loader) {
+        OcppTagState state = cache.getIfPresent(idTag);
+        if (state != null) {
+            return state;
+        }
+
+        Lock l = idTagLocks.get(idTag);
+        l.lock();
+        try {
+            // It might be loaded by another thread in the meantime. Unlike getIfPresent, the lookup via the map view
+            // is not recorded in the stats, so this miss is not counted twice.
+            state = cache.asMap().get(idTag);
+            if (state == null) {
+                long generationBefore = generation.get();
+                state = loader.apply(idTag);
+                if (state != null) {
+                    generation.putIfCurrent(cache, idTag, state, generationBefore);
+                }
+            }
+            return state;
+        } finally {
+            l.unlock();
+        }
+    }
+
+    /**
+     * Runs the change of the active transactions of the tag in the database, and applies the resulting delta to the
+     * cached entry as well
+     */
+    public <T> T changeActiveTransactions(String idTag, Supplier<T> change, ToIntFunction<T> deltaFunction) {
+        Lock l = idTagLocks.get(idTag);
+        l.lock();
+        try {
+            T result = change.get();
+            int delta = deltaFunction.applyAsInt(result);
+            if (delta != 0) {
+                cache.asMap().computeIfPresent(idTag, (key, state) -> state.withActiveTransactionDelta(delta));
+            }
+            return result;
+        } finally {
+            l.unlock();
+        }
+    }
+
+    public void invalidate(String idTag) {
+        generation.next();
+        cache.invalidate(idTag);
+    }
+
+    public void invalidateAll() {
+        generation.next();
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
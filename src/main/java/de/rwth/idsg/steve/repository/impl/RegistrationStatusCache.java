@@ -0,0 +1,103 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Every WebSocket handshake and every SOAP request of a station needs its registration status. After a network
+ * outage, all stations reconnect within a short time, and looking up each of them in the database adds up. Instead,
+ * we cache chargeBoxId -> registration status.
+ *
+ * Unknown stations are cached as well (as empty), but only for a short time, such that a station that keeps
+ * retrying does not hit the database with every attempt. The charge point repository invalidates the entry of a
+ * station when it is added, updated or deleted. A station that is added to the database directly (i.e. not via
+ * SteVe) can connect after 30 seconds at most, and a changed status is picked up after 10 minutes at most.
+ *
+ * @since 18.10.2026
+ */
+@Component
+public class RegistrationStatusCache {
+
+    private static final int MAX_SIZE = 100_000;
+    private static final long EXPIRE_AFTER_WRITE_MINUTES = 10;
+    private static final long UNKNOWN_EXPIRE_AFTER_SECONDS = 30;
+
+    private final Cache<String, Entry> cache =
+            CacheBuilder.newBuilder()
+                        .maximumSize(MAX_SIZE)
+                        .expireAfterWrite(EXPIRE_AFTER_WRITE_MINUTES, TimeUnit.MINUTES)
+                        .build();
+
+    private final CacheGeneration generation = new CacheGeneration();
+
+    public Optional<String> get(String chargeBoxId, Function<String, Optional<String>> loader) {
+        Entry entry = cache.getIfPresent(chargeBoxId);
+        if (entry != null && !entry.isExpired()) {
+            return entry.status;
+        }
+
+        long generationBefore = generation.get();
+        Optional<String> status = loader.apply(chargeBoxId);
+        generation.putIfCurrent(cache, chargeBoxId, new Entry(status, getExpiresAt(status)), generationBefore);
+        return status;
+    }
+
+    public void invalidate(String chargeBoxId) {
+        generation.next();
+        cache.invalidate(chargeBoxId);
+    }
+
+    public void invalidate(Collection<String> chargeBoxIdList) {
+        generation.next();
+        cache.invalidateAll(chargeBoxIdList);
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    /**
+     * The known stations only expire with the cache (i.e. never before)
+     */
+    private static long getExpiresAt(Optional<String> status) {
+        if (status.isPresent()) {
+            return Long.MAX_VALUE;
+        }
+        return System.nanoTime() + TimeUnit.SECONDS.toNanos(UNKNOWN_EXPIRE_AFTER_SECONDS);
+    }
+
+    @RequiredArgsConstructor
+    private static final class Entry {
+        private final Optional<String> status;
+        private final long expiresAt;
+
+        private boolean isExpired() {
+            return expiresAt != Long.MAX_VALUE && System.nanoTime() - expiresAt > 0;
+        }
+    }
+}
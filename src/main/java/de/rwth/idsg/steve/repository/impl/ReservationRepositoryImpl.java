@@ -31,7 +31,6 @@ import org.jooq.DSLContext;
 import org.jooq.Record1;
 import org.jooq.Record10;
 import org.jooq.RecordMapper;
-import org.jooq.Select;
 import org.jooq.SelectConditionStep;
 import org.jooq.SelectQuery;
 import org.jooq.exception.DataAccessException;
@@ -160,13 +159,13 @@ public class ReservationRepositoryImpl implements ReservationRepository {
     }
 
     @Override
-    public void used(Select<Record1<Integer>> connectorPkSelect, String ocppIdTag, int reservationId, int transactionId) {
+    public void used(int connectorPk, String ocppIdTag, int reservationId, int transactionId) {
         int count = ctx.update(RESERVATION)
                        .set(RESERVATION.STATUS, ReservationStatus.USED.name())
                        .set(RESERVATION.TRANSACTION_PK, transactionId)
                        .where(RESERVATION.RESERVATION_PK.equal(reservationId))
                        .and(RESERVATION.ID_TAG.equal(ocppIdTag))
-                       .and(RESERVATION.CONNECTOR_PK.equal(connectorPkSelect))
+                       .and(RESERVATION.CONNECTOR_PK.equal(connectorPk))
                        .and(RESERVATION.STATUS.eq(ReservationStatus.ACCEPTED.name()))
                        .execute();
 
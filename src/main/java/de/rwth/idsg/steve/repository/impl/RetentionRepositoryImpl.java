@@ -0,0 +1,180 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import de.rwth.idsg.steve.repository.RetentionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.joda.time.DateTime;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+import static jooq.steve.db.tables.ConnectorMeterValue.CONNECTOR_METER_VALUE;
+import static jooq.steve.db.tables.ConnectorMeterValueRollup.CONNECTOR_METER_VALUE_ROLLUP;
+import static jooq.steve.db.tables.ConnectorStatus.CONNECTOR_STATUS;
+import static jooq.steve.db.tables.RetentionProgress.RETENTION_PROGRESS;
+
+/**
+ * The rollups are written with plain SQL, since they rely on MySQL specifics (INSERT ... SELECT with
+ * ON DUPLICATE KEY UPDATE, UNIX_TIMESTAMP arithmetic for the buckets).
+ *
+ * The latest value of a bucket is found with MAX(CONCAT(timestamp, value)): A TIMESTAMP(6) always renders as
+ * 26 characters, so the maximum string belongs to the latest sample, and the value starts at position 27.
+ *
+ * @since 18.10.2026
+ */
+@Slf4j
+@Repository
+public class RetentionRepositoryImpl implements RetentionRepository {
+
+    // Only these values are used for min, max and sum. Others (e.g. signed data) are only kept as the last value.
+    private static final String NUMERIC_REGEX = "^-?[0-9]+([.][0-9]+)?$";
+
+    private static final String ROLLUP_COLUMNS =
+            "(connector_pk, transaction_pk, resolution_minutes, bucket_start, measurand, phase, location, unit, "
+                    + "sample_count, numeric_count, min_value, max_value, sum_value, last_value, last_value_timestamp)";
+
+    private static final String ON_DUPLICATE_KEY_OVERWRITE =
+            "ON DUPLICATE KEY UPDATE "
+                    + "sample_count = VALUES(sample_count), "
+                    + "numeric_count = VALUES(numeric_count), "
+                    + "min_value = VALUES(min_value), "
+                    + "max_value = VALUES(max_value), "
+                    + "sum_value = VALUES(sum_value), "
+                    + "last_value = VALUES(last_value), "
+                    + "last_value_timestamp = VALUES(last_value_timestamp)";
+
+    // {0} = rollup table, {1} = meter value table, {2} = from, {3} = to, {4} = resolution in minutes, {5} = regex
+    private static final String ROLLUP_METER_VALUES_SQL =
+            "INSERT INTO {0} " + ROLLUP_COLUMNS + " "
+                    + "SELECT connector_pk, IFNULL(transaction_pk, 0), {4}, "
+                    + "FROM_UNIXTIME(FLOOR(UNIX_TIMESTAMP(value_timestamp) / ({4} * 60)) * ({4} * 60)) AS bucket, "
+                    + "IFNULL(measurand, ''), IFNULL(phase, ''), IFNULL(location, ''), IFNULL(unit, ''), "
+                    + "COUNT(*), COUNT(numeric_value), MIN(numeric_value), MAX(numeric_value), SUM(numeric_value), "
+                    + "SUBSTRING(MAX(CONCAT(value_timestamp, value)), 27), MAX(value_timestamp) "
+                    + "FROM ("
+                    + "SELECT *, CASE WHEN value REGEXP {5} THEN CAST(value AS DECIMAL(30, 6)) END AS numeric_value "
+                    + "FROM {1} WHERE value_timestamp >= {2} AND value_timestamp < {3}"
+                    + ") AS t "
+                    + "GROUP BY connector_pk, IFNULL(transaction_pk, 0), bucket, "
+                    + "IFNULL(measurand, ''), IFNULL(phase, ''), IFNULL(location, ''), IFNULL(unit, '') "
+                    + ON_DUPLICATE_KEY_OVERWRITE;
+
+    // {0} = rollup table, {1} = from, {2} = to, {3} = source resolution, {4} = target resolution
+    private static final String ROLLUP_ROLLUPS_SQL =
+            "INSERT INTO {0} " + ROLLUP_COLUMNS + " "
+                    + "SELECT connector_pk, transaction_pk, {4}, "
+                    + "FROM_UNIXTIME(FLOOR(UNIX_TIMESTAMP(bucket_start) / ({4} * 60)) * ({4} * 60)) AS bucket, "
+                    + "measurand, phase, location, unit, "
+                    + "SUM(sample_count), SUM(numeric_count), MIN(min_value), MAX(max_value), SUM(sum_value), "
+                    + "SUBSTRING(MAX(CONCAT(last_value_timestamp, last_value)), 27), MAX(last_value_timestamp) "
+                    + "FROM {0} AS source "
+                    + "WHERE resolution_minutes = {3} AND bucket_start >= {1} AND bucket_start < {2} "
+                    + "GROUP BY connector_pk, transaction_pk, bucket, measurand, phase, location, unit "
+                    + ON_DUPLICATE_KEY_OVERWRITE;
+
+    @Autowired private DSLContext ctx;
+
+    @Override
+    public Optional<DateTime> getDoneUntil(String policy) {
+        return ctx.select(RETENTION_PROGRESS.DONE_UNTIL)
+                  .from(RETENTION_PROGRESS)
+                  .where(RETENTION_PROGRESS.POLICY.eq(policy))
+                  .fetchOptional(RETENTION_PROGRESS.DONE_UNTIL);
+    }
+
+    @Override
+    public void setDoneUntil(String policy, DateTime doneUntil) {
+        ctx.insertInto(RETENTION_PROGRESS)
+           .set(RETENTION_PROGRESS.POLICY, policy)
+           .set(RETENTION_PROGRESS.DONE_UNTIL, doneUntil)
+           .onDuplicateKeyUpdate()
+           .set(RETENTION_PROGRESS.DONE_UNTIL, doneUntil)
+           .execute();
+    }
+
+    @Override
+    public Optional<DateTime> getOldestMeterValueTimestamp() {
+        return ctx.select(DSL.min(CONNECTOR_METER_VALUE.VALUE_TIMESTAMP))
+                  .from(CONNECTOR_METER_VALUE)
+                  .fetchOptional()
+                  .map(r -> r.value1());
+    }
+
+    @Override
+    public Optional<DateTime> getOldestMeterValueRollupTimestamp(int resolutionMinutes) {
+        return ctx.select(DSL.min(CONNECTOR_METER_VALUE_ROLLUP.BUCKET_START))
+                  .from(CONNECTOR_METER_VALUE_ROLLUP)
+                  .where(CONNECTOR_METER_VALUE_ROLLUP.RESOLUTION_MINUTES.eq(resolutionMinutes))
+                  .fetchOptional()
+                  .map(r -> r.value1());
+    }
+
+    @Override
+    public int rollupMeterValues(DateTime from, DateTime to, int resolutionMinutes) {
+        return ctx.execute(ROLLUP_METER_VALUES_SQL,
+                CONNECTOR_METER_VALUE_ROLLUP,
+                CONNECTOR_METER_VALUE,
+                DSL.val(from, CONNECTOR_METER_VALUE.VALUE_TIMESTAMP),
+                DSL.val(to, CONNECTOR_METER_VALUE.VALUE_TIMESTAMP),
+                DSL.val(resolutionMinutes),
+                DSL.val(NUMERIC_REGEX)
+        );
+    }
+
+    @Override
+    public int rollupMeterValueRollups(DateTime from, DateTime to, int fromResolutionMinutes,
+                                       int toResolutionMinutes) {
+        return ctx.execute(ROLLUP_ROLLUPS_SQL,
+                CONNECTOR_METER_VALUE_ROLLUP,
+                DSL.val(from, CONNECTOR_METER_VALUE_ROLLUP.BUCKET_START),
+                DSL.val(to, CONNECTOR_METER_VALUE_ROLLUP.BUCKET_START),
+                DSL.val(fromResolutionMinutes),
+                DSL.val(toResolutionMinutes)
+        );
+    }
+
+    @Override
+    public int deleteMeterValues(DateTime before, int limit) {
+        return ctx.delete(CONNECTOR_METER_VALUE)
+                  .where(CONNECTOR_METER_VALUE.VALUE_TIMESTAMP.lessThan(before))
+                  .limit(limit)
+                  .execute();
+    }
+
+    @Override
+    public int deleteMeterValueRollups(int resolutionMinutes, DateTime before, int limit) {
+        return ctx.delete(CONNECTOR_METER_VALUE_ROLLUP)
+                  .where(CONNECTOR_METER_VALUE_ROLLUP.RESOLUTION_MINUTES.eq(resolutionMinutes))
+                  .and(CONNECTOR_METER_VALUE_ROLLUP.BUCKET_START.lessThan(before))
+                  .limit(limit)
+                  .execute();
+    }
+
+    @Override
+    public int deleteConnectorStatuses(DateTime before, int limit) {
+        return ctx.delete(CONNECTOR_STATUS)
+                  .where(CONNECTOR_STATUS.STATUS_TIMESTAMP.lessThan(before))
+                  .limit(limit)
+                  .execute();
+    }
+}
@@ -26,6 +26,7 @@ import de.rwth.idsg.steve.repository.SettingsRepository;
 import de.rwth.idsg.steve.repository.dto.MailSettings;
 import de.rwth.idsg.steve.web.dto.SettingsForm;
 import jooq.steve.db.tables.records.SettingsRecord;
+import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.Nullable;
 import org.jooq.DSLContext;
 import org.jooq.exception.DataAccessException;
@@ -33,6 +34,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
@@ -62,61 +64,48 @@ public class SettingsRepositoryImpl implements SettingsRepository {
 
     @Autowired private DSLContext ctx;
 
+    // The settings are read with almost every OCPP message, but change very rarely. Therefore, we keep them in
+    // memory, and replace them as a whole after every update.
+    private volatile Snapshot snapshot;
+
     @Override
     public SettingsForm getForm() {
-        SettingsRecord r = getInternal();
-
-        List<String> eMails = split(r.getMailRecipients());
-        List<NotificationFeature> features = splitFeatures(r.getNotificationFeatures());
+        Snapshot s = getSnapshot();
+        MailSettings mail = s.mailSettings;
 
         return SettingsForm.builder()
-                           .heartbeat(toMin(r.getHeartbeatIntervalInSeconds()))
-                           .expiration(r.getHoursToExpire())
-                           .enabled(r.getMailEnabled())
-                           .host(r.getMailHost())
-                           .username(r.getMailUsername())
-                           .password(r.getMailPassword())
-                           .from(r.getMailFrom())
-                           .protocol(r.getMailProtocol())
-                           .port(r.getMailPort())
-                           .recipients(eMails)
-                           .enabledFeatures(features)
+                           .heartbeat(toMin(s.heartbeatIntervalInSeconds))
+                           .expiration(s.hoursToExpire)
+                           .enabled(mail.isEnabled())
+                           .host(mail.getHost())
+                           .username(mail.getUsername())
+                           .password(mail.getPassword())
+                           .from(mail.getFrom())
+                           .protocol(mail.getProtocol())
+                           .port(mail.getPort())
+                           .recipients(new ArrayList<>(mail.getRecipients()))
+                           .enabledFeatures(new ArrayList<>(mail.getEnabledFeatures()))
                            .build();
 
     }
 
     @Override
     public MailSettings getMailSettings() {
-        SettingsRecord r = getInternal();
-
-        List<String> eMails = split(r.getMailRecipients());
-        List<NotificationFeature> features = splitFeatures(r.getNotificationFeatures());
-
-        return MailSettings.builder()
-                           .enabled(r.getMailEnabled())
-                           .host(r.getMailHost())
-                           .username(r.getMailUsername())
-                           .password(r.getMailPassword())
-                           .from(r.getMailFrom())
-                           .protocol(r.getMailProtocol())
-                           .port(r.getMailPort())
-                           .recipients(eMails)
-                           .enabledFeatures(features)
-                           .build();
+        return getSnapshot().mailSettings;
     }
 
     @Override
     public int getHeartbeatIntervalInSeconds() {
-        return getInternal().getHeartbeatIntervalInSeconds();
+        return getSnapshot().heartbeatIntervalInSeconds;
     }
 
     @Override
     public int getHoursToExpire() {
-        return getInternal().getHoursToExpire();
+        return getSnapshot().hoursToExpire;
     }
 
     @Override
-    public void update(SettingsForm form) {
+    public synchronized void update(SettingsForm form) {
         String eMails = join(form.getRecipients());
         String features = join(form.getEnabledFeatures());
 
@@ -139,6 +128,38 @@ public class SettingsRepositoryImpl implements SettingsRepository {
         } catch (DataAccessException e) {
             throw new SteveException("FAILED to save the settings", e);
         }
+
+        // Read them back instead of using the form, such that the snapshot is exactly what is in the database
+        reload();
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            s = reload();
+        }
+        return s;
+    }
+
+    private synchronized Snapshot reload() {
+        SettingsRecord r = getInternal();
+
+        MailSettings mailSettings =
+                MailSettings.builder()
+                            .enabled(r.getMailEnabled())
+                            .host(r.getMailHost())
+                            .username(r.getMailUsername())
+                            .password(r.getMailPassword())
+                            .from(r.getMailFrom())
+                            .protocol(r.getMailProtocol())
+                            .port(r.getMailPort())
+                            .recipients(split(r.getMailRecipients()))
+                            .enabledFeatures(Collections.unmodifiableList(splitFeatures(r.getNotificationFeatures())))
+                            .build();
+
+        Snapshot s = new Snapshot(r.getHeartbeatIntervalInSeconds(), r.getHoursToExpire(), mailSettings);
+        snapshot = s;
+        return s;
     }
 
     private SettingsRecord getInternal() {
@@ -178,4 +199,11 @@ public class SettingsRepositoryImpl implements SettingsRepository {
                          .map(NotificationFeature::fromName)
                          .collect(Collectors.toList());
     }
+
+    @RequiredArgsConstructor
+    private static final class Snapshot {
+        private final int heartbeatIntervalInSeconds;
+        private final int hoursToExpire;
+        private final MailSettings mailSettings;
+    }
 }
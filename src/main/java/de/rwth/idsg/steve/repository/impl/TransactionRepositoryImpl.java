@@ -29,11 +29,15 @@ import jooq.steve.db.tables.records.ConnectorMeterValueRecord;
 import jooq.steve.db.tables.records.TransactionStartRecord;
 import org.joda.time.DateTime;
 import org.jooq.Condition;
+import org.jooq.Cursor;
 import org.jooq.DSLContext;
 import org.jooq.Field;
+import org.jooq.Record;
 import org.jooq.Record12;
+import org.jooq.Record8;
 import org.jooq.Record9;
 import org.jooq.RecordMapper;
+import org.jooq.ResultQuery;
 import org.jooq.SelectQuery;
 import org.jooq.Table;
 import org.jooq.impl.DSL;
@@ -58,6 +62,8 @@ import static jooq.steve.db.tables.TransactionStart.TRANSACTION_START;
 @Repository
 public class TransactionRepositoryImpl implements TransactionRepository {
 
+    private static final int CSV_FETCH_SIZE = 1000;
+
     private final DSLContext ctx;
 
     @Autowired
@@ -75,8 +81,7 @@ public class TransactionRepositoryImpl implements TransactionRepository {
     @Override
     @SuppressWarnings("unchecked")
     public void writeTransactionsCSV(TransactionQueryForm form, Writer writer) {
-        getInternalCSV(form).fetch()
-                            .formatCSV(writer);
+        writeCSV(getInternalCSV(form), writer);
     }
 
     @Override
@@ -90,6 +95,15 @@ public class TransactionRepositoryImpl implements TransactionRepository {
                   .fetch(TRANSACTION.TRANSACTION_PK);
     }
 
+    @Override
+    public void writeMeterValuesCSV(int transactionPk, Writer writer) {
+        Record12<Integer, String, Integer, String, DateTime, String, DateTime, String, String, Integer, Integer, TransactionStopEventActor>
+                transaction = getTransaction(transactionPk);
+
+        TransactionStartRecord nextTx = getNextTransaction(transaction);
+        writeCSV(getMeterValuesQuery(transactionPk, transaction, nextTx, true), writer);
+    }
+
     @Override
     public TransactionDetails getDetails(int transactionPk, boolean firstArrivingMeterValueIfMultiple) {
 
@@ -97,6 +111,53 @@ public class TransactionRepositoryImpl implements TransactionRepository {
         // Step 1: Collect general data about transaction
         // -------------------------------------------------------------------------
 
+        Record12<Integer, String, Integer, String, DateTime, String, DateTime, String, String, Integer, Integer, TransactionStopEventActor>
+                transaction = getTransaction(transactionPk);
+
+        // -------------------------------------------------------------------------
+        // Step 2: Collect intermediate meter values
+        // -------------------------------------------------------------------------
+
+        TransactionStartRecord nextTx = getNextTransaction(transaction);
+
+        List<TransactionDetails.MeterValues> values =
+                getMeterValuesQuery(transactionPk, transaction, nextTx, firstArrivingMeterValueIfMultiple)
+                        .fetch()
+                        .map(r -> TransactionDetails.MeterValues.builder()
+                                                                .valueTimestamp(r.value1())
+                                                                .value(r.value2())
+                                                                .readingContext(r.value3())
+                                                                .format(r.value4())
+                                                                .measurand(r.value5())
+                                                                .location(r.value6())
+                                                                .unit(r.value7())
+                                                                .phase(r.value8())
+                                                                .build());
+
+        return new TransactionDetails(new TransactionMapper().map(transaction), values, nextTx);
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    /**
+     * Writes the rows while reading them, such that only one chunk of rows is in memory regardless of the size of
+     * the result. The fetch size makes the driver retrieve the rows from the database in chunks as well (otherwise,
+     * the driver would read the whole result into memory before returning the first row).
+     */
+    private static void writeCSV(ResultQuery<? extends Record> query, Writer writer) {
+        try (Cursor<? extends Record> cursor = query.fetchSize(CSV_FETCH_SIZE).fetchLazy()) {
+            boolean header = true;
+            do {
+                cursor.fetchNext(CSV_FETCH_SIZE).formatCSV(writer, header);
+                header = false;
+            } while (cursor.hasNext());
+        }
+    }
+
+    private Record12<Integer, String, Integer, String, DateTime, String, DateTime, String, String, Integer, Integer, TransactionStopEventActor>
+    getTransaction(int transactionPk) {
         TransactionQueryForm form = new TransactionQueryForm();
         form.setTransactionPk(transactionPk);
         form.setType(TransactionQueryForm.QueryType.ALL);
@@ -108,39 +169,57 @@ public class TransactionRepositoryImpl implements TransactionRepository {
         if (transaction == null) {
             throw new SteveException("There is no transaction with id '%s'", transactionPk);
         }
+        return transaction;
+    }
 
+    /**
+     * @return the subsequent transaction at the same chargebox and connector, if the given transaction is a
+     *         "zombie". null otherwise.
+     */
+    private TransactionStartRecord getNextTransaction(
+            Record12<Integer, String, Integer, String, DateTime, String, DateTime, String, String, Integer, Integer, TransactionStopEventActor> transaction) {
         DateTime startTimestamp = transaction.value5();
         DateTime stopTimestamp = transaction.value7();
         String stopValue = transaction.value8();
         String chargeBoxId = transaction.value2();
         int connectorId = transaction.value3();
 
-        // -------------------------------------------------------------------------
-        // Step 2: Collect intermediate meter values
-        // -------------------------------------------------------------------------
+        if (stopTimestamp != null || stopValue != null) {
+            return null;
+        }
 
-        Condition timestampCondition;
-        TransactionStartRecord nextTx = null;
+        // https://github.com/RWTH-i5-IDSG/steve/issues/97
+        //
+        // handle "zombie" transaction, for which we did not receive any StopTransaction. if we do not handle it,
+        // meter values for all subsequent transactions at this chargebox and connector will be falsely attributed
+        // to this zombie transaction.
+        //
+        // "what is the subsequent transaction at the same chargebox and connector?"
+        return ctx.selectFrom(TRANSACTION_START)
+                  .where(TRANSACTION_START.CONNECTOR_PK.eq(ctx.select(CONNECTOR.CONNECTOR_PK)
+                                                              .from(CONNECTOR)
+                                                              .where(CONNECTOR.CHARGE_BOX_ID.equal(chargeBoxId))
+                                                              .and(CONNECTOR.CONNECTOR_ID.equal(connectorId))))
+                  .and(TRANSACTION_START.START_TIMESTAMP.greaterThan(startTimestamp))
+                  .orderBy(TRANSACTION_START.START_TIMESTAMP)
+                  .limit(1)
+                  .fetchOne();
+    }
 
-        if (stopTimestamp == null && stopValue == null) {
+    private ResultQuery<Record8<DateTime, String, String, String, String, String, String, String>>
+    getMeterValuesQuery(int transactionPk,
+                        Record12<Integer, String, Integer, String, DateTime, String, DateTime, String, String, Integer, Integer, TransactionStopEventActor> transaction,
+                        TransactionStartRecord nextTx, boolean firstArrivingMeterValueIfMultiple) {
 
-            // https://github.com/RWTH-i5-IDSG/steve/issues/97
-            //
-            // handle "zombie" transaction, for which we did not receive any StopTransaction. if we do not handle it,
-            // meter values for all subsequent transactions at this chargebox and connector will be falsely attributed
-            // to this zombie transaction.
-            //
-            // "what is the subsequent transaction at the same chargebox and connector?"
-            nextTx = ctx.selectFrom(TRANSACTION_START)
-                        .where(TRANSACTION_START.CONNECTOR_PK.eq(ctx.select(CONNECTOR.CONNECTOR_PK)
-                                                                    .from(CONNECTOR)
-                                                                    .where(CONNECTOR.CHARGE_BOX_ID.equal(chargeBoxId))
-                                                                    .and(CONNECTOR.CONNECTOR_ID.equal(connectorId))))
-                        .and(TRANSACTION_START.START_TIMESTAMP.greaterThan(startTimestamp))
-                        .orderBy(TRANSACTION_START.START_TIMESTAMP)
-                        .limit(1)
-                        .fetchOne();
+        DateTime startTimestamp = transaction.value5();
+        DateTime stopTimestamp = transaction.value7();
+        String stopValue = transaction.value8();
+        String chargeBoxId = transaction.value2();
+        int connectorId = transaction.value3();
 
+        Condition timestampCondition;
+
+        if (stopTimestamp == null && stopValue == null) {
             if (nextTx == null) {
                 // the last active transaction
                 timestampCondition = CONNECTOR_METER_VALUE.VALUE_TIMESTAMP.greaterOrEqual(startTimestamp);
@@ -179,7 +258,7 @@ public class TransactionRepositoryImpl implements TransactionRepository {
         Table<ConnectorMeterValueRecord> t1 = transactionQuery.union(timestampQuery).asTable("t1");
 
         // -------------------------------------------------------------------------
-        // Step 3: Charging station might send meter vales at fixed intervals (e.g.
+        // Charging station might send meter vales at fixed intervals (e.g.
         // every 15 min) regardless of the fact that connector's meter value did not
         // change (e.g. vehicle is fully charged, but cable is still connected). This
         // yields multiple entries in db with the same value but different timestamp.
@@ -188,13 +267,12 @@ public class TransactionRepositoryImpl implements TransactionRepository {
 
         Field<DateTime> dateTimeField;
         if (firstArrivingMeterValueIfMultiple) {
-            dateTimeField = DSL.min(t1.field(2, DateTime.class)).as("min");
+            dateTimeField = DSL.min(t1.field(2, DateTime.class)).as(CONNECTOR_METER_VALUE.VALUE_TIMESTAMP.getName());
         } else {
-            dateTimeField = DSL.max(t1.field(2, DateTime.class)).as("max");
+            dateTimeField = DSL.max(t1.field(2, DateTime.class)).as(CONNECTOR_METER_VALUE.VALUE_TIMESTAMP.getName());
         }
 
-        List<TransactionDetails.MeterValues> values =
-                ctx.select(
+        return ctx.select(
                         dateTimeField,
                         t1.field(3, String.class),
                         t1.field(4, String.class),
@@ -203,35 +281,18 @@ public class TransactionRepositoryImpl implements TransactionRepository {
                         t1.field(7, String.class),
                         t1.field(8, String.class),
                         t1.field(9, String.class))
-                   .from(t1)
-                   .groupBy(
-                           t1.field(3),
-                           t1.field(4),
-                           t1.field(5),
-                           t1.field(6),
-                           t1.field(7),
-                           t1.field(8),
-                           t1.field(9))
-                   .orderBy(dateTimeField)
-                   .fetch()
-                   .map(r -> TransactionDetails.MeterValues.builder()
-                                                           .valueTimestamp(r.value1())
-                                                           .value(r.value2())
-                                                           .readingContext(r.value3())
-                                                           .format(r.value4())
-                                                           .measurand(r.value5())
-                                                           .location(r.value6())
-                                                           .unit(r.value7())
-                                                           .phase(r.value8())
-                                                           .build());
-
-        return new TransactionDetails(new TransactionMapper().map(transaction), values, nextTx);
+                  .from(t1)
+                  .groupBy(
+                          t1.field(3),
+                          t1.field(4),
+                          t1.field(5),
+                          t1.field(6),
+                          t1.field(7),
+                          t1.field(8),
+                          t1.field(9))
+                  .orderBy(dateTimeField);
     }
 
-    // -------------------------------------------------------------------------
-    // Private helpers
-    // -------------------------------------------------------------------------
-
     @SuppressWarnings("unchecked")
     private
     SelectQuery<Record9<Integer, String, Integer, String, DateTime, String, DateTime, String, String>>
@@ -19,12 +19,15 @@
 package de.rwth.idsg.steve.service;
 
 import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
+import de.rwth.idsg.steve.utils.VirtualThreads;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * @author Sevket Goekay <goekay@dbis.rwth-aachen.de>
@@ -46,6 +49,14 @@ public class BackgroundService {
         return new BackgroundListRunner(list);
     }
 
+    /**
+     * For a request that is the same for all charge points: The SOAP ones get it one by one (as above), whereas the
+     * JSON ones are passed to the broadcaster at once, so that the request is serialized only once for all of them.
+     */
+    public Runner forEach(List<ChargePointSelect> list, Consumer<List<ChargePointSelect>> jsonBroadcaster) {
+        return new BackgroundBroadcastRunner(list, jsonBroadcaster);
+    }
+
     public interface Runner {
         void execute(Consumer<ChargePointSelect> consumer);
     }
@@ -64,9 +75,39 @@ public class BackgroundService {
     private class BackgroundListRunner implements Runner {
         private final List<ChargePointSelect> list;
 
+        /**
+         * With virtual threads, every charge point gets its own task, since blocking is cheap there. Otherwise, we
+         * go through the list in one task, so that a large selection does not occupy all threads of the pool.
+         */
         @Override
         public void execute(Consumer<ChargePointSelect> consumer) {
-            executorService.execute(() -> list.forEach(consumer));
+            if (VirtualThreads.isEnabled()) {
+                list.forEach(cps -> executorService.execute(() -> consumer.accept(cps)));
+            } else {
+                executorService.execute(() -> list.forEach(consumer));
+            }
+        }
+    }
+
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private class BackgroundBroadcastRunner implements Runner {
+        private final List<ChargePointSelect> list;
+        private final Consumer<List<ChargePointSelect>> jsonBroadcaster;
+
+        @Override
+        public void execute(Consumer<ChargePointSelect> soapConsumer) {
+            Map<Boolean, List<ChargePointSelect>> partitions =
+                    list.stream().collect(Collectors.partitioningBy(ChargePointSelect::isSoap));
+
+            List<ChargePointSelect> soapList = partitions.get(true);
+            if (!soapList.isEmpty()) {
+                new BackgroundListRunner(soapList).execute(soapConsumer);
+            }
+
+            List<ChargePointSelect> jsonList = partitions.get(false);
+            if (!jsonList.isEmpty()) {
+                executorService.execute(() -> jsonBroadcaster.accept(jsonList));
+            }
         }
     }
 }
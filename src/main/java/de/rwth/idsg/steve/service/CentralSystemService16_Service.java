@@ -72,6 +72,8 @@ public class CentralSystemService16_Service {
     @Autowired private OcppTagService ocppTagService;
     @Autowired private NotificationService notificationService;
     @Autowired private ChargePointHelperService chargePointHelperService;
+    @Autowired private HeartbeatService heartbeatService;
+    @Autowired private MeterValuesWriter meterValuesWriter;
 
     public BootNotificationResponse bootNotification(BootNotificationRequest parameters, String chargeBoxIdentity,
                                                      OcppProtocol ocppProtocol) {
@@ -146,7 +148,7 @@ public class CentralSystemService16_Service {
     }
 
     public MeterValuesResponse meterValues(MeterValuesRequest parameters, String chargeBoxIdentity) {
-        ocppServerRepository.insertMeterValues(
+        meterValuesWriter.insertMeterValues(
                 chargeBoxIdentity,
                 parameters.getMeterValue(),
                 parameters.getConnectorId(),
@@ -224,7 +226,7 @@ public class CentralSystemService16_Service {
 
     public HeartbeatResponse heartbeat(HeartbeatRequest parameters, String chargeBoxIdentity) {
         DateTime now = DateTime.now();
-        ocppServerRepository.updateChargeboxHeartbeat(chargeBoxIdentity, now);
+        heartbeatService.update(chargeBoxIdentity, now);
 
         return new HeartbeatResponse().withCurrentTime(now);
     }
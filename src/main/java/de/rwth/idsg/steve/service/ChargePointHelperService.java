@@ -28,11 +28,8 @@ import de.rwth.idsg.steve.ocpp.ws.ocpp12.Ocpp12WebSocketEndpoint;
 import de.rwth.idsg.steve.ocpp.ws.ocpp15.Ocpp15WebSocketEndpoint;
 import de.rwth.idsg.steve.ocpp.ws.ocpp16.Ocpp16WebSocketEndpoint;
 import de.rwth.idsg.steve.repository.ChargePointRepository;
-import de.rwth.idsg.steve.repository.GenericRepository;
 import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
-import de.rwth.idsg.steve.repository.dto.ConnectorStatus;
 import de.rwth.idsg.steve.service.dto.UnidentifiedIncomingObject;
-import de.rwth.idsg.steve.utils.ConnectorStatusCountFilter;
 import de.rwth.idsg.steve.utils.DateTimeUtils;
 import de.rwth.idsg.steve.web.dto.OcppJsonStatus;
 import de.rwth.idsg.steve.web.dto.Statistics;
@@ -46,7 +43,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -66,7 +62,7 @@ public class ChargePointHelperService {
     private final boolean autoRegisterUnknownStations = CONFIG.getOcpp().isAutoRegisterUnknownStations();
     private final Striped<Lock> isRegisteredLocks = Striped.lock(16);
 
-    @Autowired private GenericRepository genericRepository;
+    @Autowired private StatisticsService statisticsService;
 
     // SOAP-based charge points are stored in DB with an endpoint address
     @Autowired private ChargePointRepository chargePointRepository;
@@ -78,36 +74,44 @@ public class ChargePointHelperService {
 
     private final UnidentifiedIncomingObjectService unknownChargePointService = new UnidentifiedIncomingObjectService(100);
 
+    /**
+     * The registration status is cached by the repository, which is why the lock is only needed to auto-register
+     * an unknown station once
+     */
     public Optional<RegistrationStatus> getRegistrationStatus(String chargeBoxId) {
-        Lock l = isRegisteredLocks.get(chargeBoxId);
-        l.lock();
-        try {
-            Optional<RegistrationStatus> status = getRegistrationStatusInternal(chargeBoxId);
-            if (status.isEmpty()) {
-                unknownChargePointService.processNewUnidentified(chargeBoxId);
+        Optional<String> dbStatus = chargePointRepository.getRegistrationStatus(chargeBoxId);
+
+        Optional<RegistrationStatus> status;
+        if (dbStatus.isPresent() || !autoRegisterUnknownStations) {
+            status = toRegistrationStatus(dbStatus);
+        } else {
+            Lock l = isRegisteredLocks.get(chargeBoxId);
+            l.lock();
+            try {
+                status = registerIfUnknown(chargeBoxId);
+            } finally {
+                l.unlock();
             }
-            return status;
-        } finally {
-            l.unlock();
         }
+
+        if (status.isEmpty()) {
+            unknownChargePointService.processNewUnidentified(chargeBoxId);
+        }
+        return status;
     }
 
     public Statistics getStats() {
-        Statistics stats = genericRepository.getStats();
+        Statistics stats = statisticsService.getSnapshot();
         stats.setNumOcpp12JChargeBoxes(ocpp12WebSocketEndpoint.getNumberOfChargeBoxes());
         stats.setNumOcpp15JChargeBoxes(ocpp15WebSocketEndpoint.getNumberOfChargeBoxes());
         stats.setNumOcpp16JChargeBoxes(ocpp16WebSocketEndpoint.getNumberOfChargeBoxes());
-
-        List<ConnectorStatus> latestList = chargePointRepository.getChargePointConnectorStatus();
-        stats.setStatusCountMap(ConnectorStatusCountFilter.getStatusCountMap(latestList));
-
         return stats;
     }
 
     public List<OcppJsonStatus> getOcppJsonStatus() {
-        Map<String, Deque<SessionContext>> ocpp12Map = ocpp12WebSocketEndpoint.getACopy();
-        Map<String, Deque<SessionContext>> ocpp15Map = ocpp15WebSocketEndpoint.getACopy();
-        Map<String, Deque<SessionContext>> ocpp16Map = ocpp16WebSocketEndpoint.getACopy();
+        Map<String, List<SessionContext>> ocpp12Map = ocpp12WebSocketEndpoint.getACopy();
+        Map<String, List<SessionContext>> ocpp15Map = ocpp15WebSocketEndpoint.getACopy();
+        Map<String, List<SessionContext>> ocpp16Map = ocpp16WebSocketEndpoint.getACopy();
 
         List<String> idList = extractIds(Arrays.asList(ocpp12Map, ocpp15Map, ocpp16Map));
         Map<String, Integer> primaryKeyLookup = chargePointRepository.getChargeBoxIdPkPair(idList);
@@ -154,25 +158,28 @@ public class ChargePointHelperService {
     // Helpers
     // -------------------------------------------------------------------------
 
-    private Optional<RegistrationStatus> getRegistrationStatusInternal(String chargeBoxId) {
-        // 1. exit if already registered
-        Optional<String> status = chargePointRepository.getRegistrationStatus(chargeBoxId);
-        if (status.isPresent()) {
-            try {
-                return Optional.ofNullable(RegistrationStatus.fromValue(status.get()));
-            } catch (Exception e) {
-                // in cases where the database entry (string) is altered, and therefore cannot be converted to enum
-                log.error("Exception happened", e);
-                return Optional.empty();
-            }
+    private static Optional<RegistrationStatus> toRegistrationStatus(Optional<String> status) {
+        if (status.isEmpty()) {
+            return Optional.empty();
         }
 
-        // 2. ok, this chargeBoxId is unknown. exit if auto-register is disabled
-        if (!autoRegisterUnknownStations) {
+        try {
+            return Optional.ofNullable(RegistrationStatus.fromValue(status.get()));
+        } catch (Exception e) {
+            // in cases where the database entry (string) is altered, and therefore cannot be converted to enum
+            log.error("Exception happened", e);
             return Optional.empty();
         }
+    }
+
+    private Optional<RegistrationStatus> registerIfUnknown(String chargeBoxId) {
+        // 1. exit if registered by another thread in the meantime
+        Optional<String> status = chargePointRepository.getRegistrationStatus(chargeBoxId);
+        if (status.isPresent()) {
+            return toRegistrationStatus(status);
+        }
 
-        // 3. chargeBoxId is unknown and auto-register is enabled. insert chargeBoxId
+        // 2. chargeBoxId is unknown and auto-register is enabled. insert chargeBoxId
         try {
             chargePointRepository.addChargePointList(Collections.singletonList(chargeBoxId));
             log.warn("Auto-registered unknown chargebox '{}'", chargeBoxId);
@@ -196,21 +203,21 @@ public class ChargePointHelperService {
         return returnList;
     }
 
-    private static List<String> extractIds(List<Map<String, Deque<SessionContext>>> ocppMaps) {
+    private static List<String> extractIds(List<Map<String, List<SessionContext>>> ocppMaps) {
         return ocppMaps.stream()
                        .map(Map::keySet)
                        .flatMap(Collection::stream)
                        .collect(Collectors.toList());
     }
 
-    private static void appendList(Map<String, Deque<SessionContext>> map, List<OcppJsonStatus> returnList,
+    private static void appendList(Map<String, List<SessionContext>> map, List<OcppJsonStatus> returnList,
                                    DateTime now, OcppVersion version, Map<String, Integer> primaryKeyLookup) {
 
-        for (Map.Entry<String, Deque<SessionContext>> entry : map.entrySet()) {
+        for (Map.Entry<String, List<SessionContext>> entry : map.entrySet()) {
             String chargeBoxId = entry.getKey();
-            Deque<SessionContext> endpointDeque = entry.getValue();
+            List<SessionContext> endpointList = entry.getValue();
 
-            for (SessionContext ctx : endpointDeque) {
+            for (SessionContext ctx : endpointList) {
                 DateTime openSince = ctx.getOpenSince();
 
                 OcppJsonStatus status = OcppJsonStatus.builder()
@@ -83,7 +83,8 @@ public class ChargePointService15_Client extends ChargePointService12_Client {
         DataTransferTask task = new DataTransferTask(getVersion(), params);
 
         BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+                         .forEach(task.getParams().getChargePointSelectList(),
+                                  json -> getOcpp15Invoker().broadcast(json, task))
                          .execute(c -> getOcpp15Invoker().dataTransfer(c, task));
 
         return taskStore.add(task);
@@ -93,7 +94,8 @@ public class ChargePointService15_Client extends ChargePointService12_Client {
         GetConfigurationTask task = new GetConfigurationTask(getVersion(), params);
 
         BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+                         .forEach(task.getParams().getChargePointSelectList(),
+                                  json -> getOcpp15Invoker().broadcast(json, task))
                          .execute(c -> getOcpp15Invoker().getConfiguration(c, task));
 
         return taskStore.add(task);
@@ -103,7 +105,8 @@ public class ChargePointService15_Client extends ChargePointService12_Client {
         GetLocalListVersionTask task = new GetLocalListVersionTask(getVersion(), params);
 
         BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+                         .forEach(task.getParams().getChargePointSelectList(),
+                                  json -> getOcpp15Invoker().broadcast(json, task))
                          .execute(c -> getOcpp15Invoker().getLocalListVersion(c, task));
 
         return taskStore.add(task);
@@ -113,7 +116,8 @@ public class ChargePointService15_Client extends ChargePointService12_Client {
         SendLocalListTask task = new SendLocalListTask(getVersion(), params, ocppTagService);
 
         BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+                         .forEach(task.getParams().getChargePointSelectList(),
+                                  json -> getOcpp15Invoker().broadcast(json, task))
                          .execute(c -> getOcpp15Invoker().sendLocalList(c, task));
 
         return taskStore.add(task);
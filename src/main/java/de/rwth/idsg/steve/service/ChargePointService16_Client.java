@@ -83,7 +83,8 @@ public class ChargePointService16_Client extends ChargePointService15_Client {
         TriggerMessageTask task = new TriggerMessageTask(getVersion(), params);
 
         BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+                         .forEach(task.getParams().getChargePointSelectList(),
+                                  json -> getOcpp16Invoker().broadcast(json, task))
                          .execute(c -> getOcpp16Invoker().triggerMessage(c, task));
 
         return taskStore.add(task);
@@ -98,7 +99,8 @@ public class ChargePointService16_Client extends ChargePointService15_Client {
         SetChargingProfileTask task = new SetChargingProfileTask(getVersion(), enhancedParams, chargingProfileRepository);
 
         BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+                         .forEach(task.getParams().getChargePointSelectList(),
+                                  json -> getOcpp16Invoker().broadcast(json, task))
                          .execute(c -> getOcpp16Invoker().setChargingProfile(c, task));
 
         return taskStore.add(task);
@@ -108,7 +110,8 @@ public class ChargePointService16_Client extends ChargePointService15_Client {
         ClearChargingProfileTask task = new ClearChargingProfileTask(getVersion(), params, chargingProfileRepository);
 
         BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+                         .forEach(task.getParams().getChargePointSelectList(),
+                                  json -> getOcpp16Invoker().broadcast(json, task))
                          .execute(c -> getOcpp16Invoker().clearChargingProfile(c, task));
 
         return taskStore.add(task);
@@ -118,7 +121,8 @@ public class ChargePointService16_Client extends ChargePointService15_Client {
         GetCompositeScheduleTask task = new GetCompositeScheduleTask(getVersion(), params);
 
         BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+                         .forEach(task.getParams().getChargePointSelectList(),
+                                  json -> getOcpp16Invoker().broadcast(json, task))
                          .execute(c -> getOcpp16Invoker().getCompositeSchedule(c, task));
 
         return taskStore.add(task);
@@ -0,0 +1,169 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.service;
+
+import de.rwth.idsg.steve.repository.OcppServerRepository;
+import de.rwth.idsg.steve.repository.dto.ChargePoint;
+import de.rwth.idsg.steve.utils.DateTimeUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.joda.time.DateTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Heartbeats (and pongs) are the most frequent messages of a station, and each of them used to update the
+ * last heartbeat timestamp in the database right away. Instead, we keep the latest timestamp per station in memory
+ * and write the changed ones every few seconds in one batch. The database value lags behind by the flush interval
+ * at most, which is why the Web interface overlays the in-memory values.
+ *
+ * @since 18.10.2026
+ */
+@Slf4j
+@Service
+public class HeartbeatService {
+
+    private static final long FLUSH_INTERVAL_SECONDS = 5;
+
+    @Autowired private OcppServerRepository ocppServerRepository;
+    @Autowired private ScheduledExecutorService executorService;
+    @Autowired private MetricsService metricsService;
+
+    // The latest value per station, as long as it is not written to the database. Key = chargeBoxId
+    private final Map<String, DateTime> lastSeen = new ConcurrentHashMap<>();
+
+    // The values that are not written to the database yet. Key = chargeBoxId
+    private final Map<String, DateTime> pending = new ConcurrentHashMap<>();
+
+    private ScheduledFuture<?> flushSchedule;
+    private LongAdder receivedCounter;
+    private LongAdder writtenCounter;
+
+    @PostConstruct
+    public void init() {
+        receivedCounter = metricsService.counter("heartbeat.received");
+        writtenCounter = metricsService.counter("heartbeat.writtenRows");
+        metricsService.registerGauge("heartbeat.pendingRows", pending::size);
+
+        flushSchedule = executorService.scheduleWithFixedDelay(
+                this::flushSafely, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (flushSchedule != null) {
+            flushSchedule.cancel(false);
+        }
+        flushSafely();
+    }
+
+    public void update(String chargeBoxId, DateTime ts) {
+        receivedCounter.increment();
+        lastSeen.merge(chargeBoxId, ts, HeartbeatService::latest);
+        pending.merge(chargeBoxId, ts, HeartbeatService::latest);
+    }
+
+    /**
+     * Replaces the timestamps from the database with the in-memory ones, where the latter are more recent
+     */
+    public List<ChargePoint.Overview> withLastSeen(List<ChargePoint.Overview> list) {
+        return list.stream()
+                   .map(this::withLastSeen)
+                   .collect(Collectors.toList());
+    }
+
+    public DateTime getLastSeen(String chargeBoxId, DateTime fromDatabase) {
+        DateTime inMemory = lastSeen.get(chargeBoxId);
+        if (inMemory == null) {
+            return fromDatabase;
+        }
+        return (fromDatabase == null) ? inMemory : latest(inMemory, fromDatabase);
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private ChargePoint.Overview withLastSeen(ChargePoint.Overview cp) {
+        DateTime ts = getLastSeen(cp.getChargeBoxId(), cp.getLastHeartbeatTimestampDT());
+        if (ts == cp.getLastHeartbeatTimestampDT()) {
+            return cp;
+        }
+
+        return ChargePoint.Overview.builder()
+                                   .chargeBoxPk(cp.getChargeBoxPk())
+                                   .chargeBoxId(cp.getChargeBoxId())
+                                   .description(cp.getDescription())
+                                   .ocppProtocol(cp.getOcppProtocol())
+                                   .lastHeartbeatTimestampDT(ts)
+                                   .lastHeartbeatTimestamp(DateTimeUtils.humanize(ts))
+                                   .build();
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // Do not let the exception cancel the periodic flush
+            log.error("Failed to write the heartbeat timestamps", e);
+        }
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Take the entries out of the map. A value that is updated in the meantime stays for the next flush.
+        Map<String, DateTime> batch = new HashMap<>();
+        for (Map.Entry<String, DateTime> entry : pending.entrySet()) {
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                batch.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        try {
+            ocppServerRepository.updateChargeboxHeartbeats(batch);
+            writtenCounter.add(batch.size());
+        } catch (RuntimeException e) {
+            // Put them back, unless there is a more recent value already
+            batch.forEach((chargeBoxId, ts) -> pending.merge(chargeBoxId, ts, HeartbeatService::latest));
+            throw e;
+        }
+
+        // The database has caught up, so the values need not be overlaid anymore (unless a more recent one arrived in
+        // the meantime). Otherwise, the map would keep growing with every station that was ever seen or deleted since.
+        batch.forEach((chargeBoxId, ts) -> lastSeen.remove(chargeBoxId, ts));
+    }
+
+    private static DateTime latest(DateTime a, DateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
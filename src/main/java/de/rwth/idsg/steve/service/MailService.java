@@ -22,8 +22,10 @@ import com.google.common.base.Strings;
 import de.rwth.idsg.steve.SteveException;
 import de.rwth.idsg.steve.repository.SettingsRepository;
 import de.rwth.idsg.steve.repository.dto.MailSettings;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
@@ -36,10 +38,7 @@ import javax.mail.Transport;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 import java.util.Properties;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ExecutorService;
 
 /**
  * @author Sevket Goekay <goekay@dbis.rwth-aachen.de>
@@ -50,33 +49,19 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 public class MailService {
 
     @Autowired private SettingsRepository settingsRepository;
-    @Autowired private ScheduledExecutorService executorService;
+    @Autowired @Qualifier("blockingTaskExecutor") private ExecutorService executorService;
 
-    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-    private final Lock readLock = readWriteLock.readLock();
-    private final Lock writeLock = readWriteLock.writeLock();
-
-    private MailSettings settings;
-    private Session session;
+    // The settings and the session that is created from them are replaced together
+    private volatile Config config;
 
     @PostConstruct
     public void loadSettingsFromDB() {
-        writeLock.lock();
-        try {
-            settings = settingsRepository.getMailSettings();
-        } finally {
-            writeLock.unlock();
-        }
-        session = createSession(getSettings());
+        MailSettings settings = settingsRepository.getMailSettings();
+        config = new Config(settings, createSession(settings));
     }
 
     public MailSettings getSettings() {
-        readLock.lock();
-        try {
-            return this.settings;
-        } finally {
-            readLock.unlock();
-        }
+        return config.settings;
     }
 
     public void sendTestMail() {
@@ -98,7 +83,9 @@ public class MailService {
     }
 
     public void send(String subject, String body) throws MessagingException {
-        MailSettings settings = getSettings();
+        Config config = this.config;
+        MailSettings settings = config.settings;
+        Session session = config.session;
 
         Message mail = new MimeMessage(session);
         mail.setSubject("[SteVe] " + subject);
@@ -154,4 +141,10 @@ public class MailService {
             }
         };
     }
+
+    @RequiredArgsConstructor
+    private static final class Config {
+        private final MailSettings settings;
+        private final Session session;
+    }
 }
@@ -0,0 +1,286 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.rwth.idsg.steve.repository.OcppServerRepository;
+import de.rwth.idsg.steve.repository.dto.InsertMeterValuesParams;
+import lombok.extern.slf4j.Slf4j;
+import ocpp.cs._2015._10.MeterValue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Write-behind ingestion of MeterValues. When enabled, the response to the station does not wait for the database
+ * anymore: the message is put into a bounded queue, and one writer thread group-commits the messages of many stations
+ * with multi-row inserts. A batch is written when it has enough rows or when its oldest message waited long enough.
+ *
+ * Backpressure: If the queue is full, the caller waits for a free slot for one flush interval at most. After that,
+ * the values are written by the caller itself, as if this mode was disabled. So, values are not dropped, but stations
+ * are slowed down when the database cannot keep up.
+ *
+ * @since 18.10.2026
+ */
+@Slf4j
+@Service
+public class MeterValuesWriter {
+
+    @Autowired private OcppServerRepository ocppServerRepository;
+    @Autowired private MetricsService metricsService;
+
+    private boolean enabled;
+    private int batchSize;
+    private long flushIntervalNanos;
+
+    private BlockingQueue<Entry> queue;
+    private ExecutorService writer;
+    private volatile boolean running;
+
+    // The callers offer under the read lock, such that no message is queued after the shutdown flipped the flag
+    private final ReadWriteLock runningLock = new ReentrantReadWriteLock();
+
+    private LongAdder writtenCounter;
+    private LongAdder overflowCounter;
+    private LongAdder failedCounter;
+    private MetricsService.Timer lagTimer;
+
+    @PostConstruct
+    public void init() {
+        enabled = CONFIG.getOcpp().isMeterValuesWriteBehindEnabled();
+        if (!enabled) {
+            return;
+        }
+
+        batchSize = CONFIG.getOcpp().getMeterValuesBatchSize();
+        flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(CONFIG.getOcpp().getMeterValuesFlushIntervalInMillis());
+        queue = new ArrayBlockingQueue<>(CONFIG.getOcpp().getMeterValuesQueueSize());
+
+        writtenCounter = metricsService.counter("meterValues.writtenRows");
+        overflowCounter = metricsService.counter("meterValues.writtenByCaller");
+        failedCounter = metricsService.counter("meterValues.failedRows");
+        lagTimer = metricsService.timer("meterValues.lag");
+        metricsService.registerGauge("meterValues.queued", queue::size);
+        metricsService.registerGauge("meterValues.oldestQueuedMillis", this::getOldestQueuedMillis);
+
+        running = true;
+        writer = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("SteVe-MeterValuesWriter-%d")
+                                          .build()
+        );
+        writer.execute(this::writeLoop);
+    }
+
+    /**
+     * Stops accepting new messages and writes the queued ones
+     */
+    @PreDestroy
+    public void shutDown() {
+        if (!enabled) {
+            return;
+        }
+
+        Lock lock = runningLock.writeLock();
+        lock.lock();
+        try {
+            running = false;
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            writer.shutdown();
+            if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Could not write all queued meter values before shutdown. Remaining messages: {}",
+                        queue.size());
+                return;
+            }
+        } catch (InterruptedException e) {
+            log.error("Termination interrupted", e);
+            return;
+        }
+
+        // The writer is stopped. Whatever it left behind (e.g. when it was interrupted) is written by us.
+        List<Entry> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            write(remaining);
+        }
+    }
+
+    public void insertMeterValues(String chargeBoxIdentity, List<MeterValue> list, int connectorId,
+                                  Integer transactionId) {
+        if (!enabled) {
+            ocppServerRepository.insertMeterValues(chargeBoxIdentity, list, connectorId, transactionId);
+            return;
+        }
+
+        if (CollectionUtils.isEmpty(list)) {
+            return;
+        }
+
+        InsertMeterValuesParams params = InsertMeterValuesParams.builder()
+                                                                .chargeBoxId(chargeBoxIdentity)
+                                                                .connectorId(connectorId)
+                                                                .transactionId(transactionId)
+                                                                .meterValues(list)
+                                                                .build();
+
+        if (!enqueue(new Entry(params, System.nanoTime()))) {
+            overflowCounter.increment();
+            ocppServerRepository.insertMeterValues(chargeBoxIdentity, list, connectorId, transactionId);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    /**
+     * @return false, if the writer is shut down or the queue stayed full. The caller has to write the values itself.
+     */
+    private boolean enqueue(Entry entry) {
+        Lock lock = runningLock.readLock();
+        lock.lock();
+        try {
+            return running && queue.offer(entry, flushIntervalNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                List<Entry> batch = takeBatch();
+                if (!batch.isEmpty()) {
+                    write(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Meter values writer interrupted. Remaining messages: {}", queue.size());
+                return;
+            } catch (Exception e) {
+                // Do not let the exception stop the writer
+                log.error("Exception occurred", e);
+            }
+        }
+    }
+
+    /**
+     * Blocks until the batch has enough rows or its first entry waited for one flush interval
+     */
+    private List<Entry> takeBatch() throws InterruptedException {
+        List<Entry> batch = new ArrayList<>();
+
+        Entry first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return batch;
+        }
+
+        batch.add(first);
+        int rows = first.rowCount;
+        long deadline = first.enqueuedAt + flushIntervalNanos;
+
+        while (rows < batchSize) {
+            long remaining = running ? deadline - System.nanoTime() : 0;
+            Entry next = (remaining > 0) ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            rows += next.rowCount;
+        }
+        return batch;
+    }
+
+    private void write(List<Entry> batch) {
+        List<InsertMeterValuesParams> paramsList = new ArrayList<>(batch.size());
+        int rows = 0;
+        for (Entry entry : batch) {
+            paramsList.add(entry.params);
+            rows += entry.rowCount;
+        }
+
+        try {
+            ocppServerRepository.insertMeterValues(paramsList);
+            writtenCounter.add(rows);
+        } catch (Exception e) {
+            log.error("Failed to write a batch of {} meter values. Retrying the messages one by one", rows, e);
+            writeOneByOne(batch);
+        }
+
+        long now = System.nanoTime();
+        for (Entry entry : batch) {
+            lagTimer.record(now - entry.enqueuedAt);
+        }
+    }
+
+    /**
+     * Such that one bad message does not cost us the values of the other stations
+     */
+    private void writeOneByOne(List<Entry> batch) {
+        for (Entry entry : batch) {
+            try {
+                ocppServerRepository.insertMeterValues(Collections.singletonList(entry.params));
+                writtenCounter.add(entry.rowCount);
+            } catch (Exception e) {
+                failedCounter.add(entry.rowCount);
+                log.error("Failed to write the meter values of chargeBoxId '{}'", entry.params.getChargeBoxId(), e);
+            }
+        }
+    }
+
+    private long getOldestQueuedMillis() {
+        Entry oldest = queue.peek();
+        return (oldest == null) ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.enqueuedAt);
+    }
+
+    private static class Entry {
+        private final InsertMeterValuesParams params;
+        private final long enqueuedAt;
+        private final int rowCount;
+
+        private Entry(InsertMeterValuesParams params, long enqueuedAt) {
+            this.params = params;
+            this.enqueuedAt = enqueuedAt;
+            this.rowCount = params.getSampledValueCount();
+        }
+    }
+}
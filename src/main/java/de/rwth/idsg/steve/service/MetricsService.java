@@ -0,0 +1,106 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Minimal in-process registry for operational metrics (gauges, counters and timers) of the application,
+ * which are displayed in the Web interface. We do not need a full-blown metrics library for that.
+ *
+ * Components register their metrics once (e.g. in a @PostConstruct) and keep the returned counter/timer
+ * references, so that recording on hot paths does not involve a map lookup.
+ *
+ * @since 18.10.2026
+ */
+@Service
+public class MetricsService {
+
+    private final Map<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * The supplier is called every time a snapshot is taken. It should be cheap and must not block.
+     */
+    public void registerGauge(String name, Supplier<? extends Number> supplier) {
+        gauges.put(name, supplier);
+    }
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, k -> new Timer());
+    }
+
+    /**
+     * @return name -> formatted value, sorted by name
+     */
+    public SortedMap<String, String> getSnapshot() {
+        SortedMap<String, String> snapshot = new TreeMap<>();
+        gauges.forEach((name, supplier) -> snapshot.put(name, String.valueOf(supplier.get())));
+        counters.forEach((name, counter) -> snapshot.put(name, String.valueOf(counter.sum())));
+        timers.forEach((name, timer) -> snapshot.put(name, timer.toString()));
+        return snapshot;
+    }
+
+    // -------------------------------------------------------------------------
+    // Class declarations
+    // -------------------------------------------------------------------------
+
+    public static class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private Timer() { }
+
+        public void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        public String toString() {
+            long c = count.sum();
+            double avgMillis = (c == 0) ? 0 : toMillis(totalNanos.sum()) / c;
+            return String.format("count: %d, avg: %.3f ms, max: %.3f ms", c, avgMillis, toMillis(maxNanos.get()));
+        }
+
+        private static double toMillis(long nanos) {
+            return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
@@ -22,6 +22,8 @@ import com.google.common.base.Strings;
 import de.rwth.idsg.steve.SteveException;
 import de.rwth.idsg.steve.repository.OcppTagRepository;
 import de.rwth.idsg.steve.repository.SettingsRepository;
+import de.rwth.idsg.steve.repository.dto.OcppTagState;
+import de.rwth.idsg.steve.repository.impl.OcppTagStateCache;
 import de.rwth.idsg.steve.service.dto.UnidentifiedIncomingObject;
 import jooq.steve.db.tables.records.OcppTagActivityRecord;
 import lombok.AccessLevel;
@@ -36,6 +38,7 @@ import org.jooq.RecordMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import java.util.List;
 import java.util.function.Supplier;
 
@@ -49,9 +52,18 @@ public class OcppTagService {
 
     @Autowired private SettingsRepository settingsRepository;
     @Autowired private OcppTagRepository ocppTagRepository;
+    @Autowired private OcppTagStateCache ocppTagStateCache;
+    @Autowired private MetricsService metricsService;
 
     private final UnidentifiedIncomingObjectService invalidOcppTagService = new UnidentifiedIncomingObjectService(1000);
 
+    @PostConstruct
+    public void init() {
+        metricsService.registerGauge("ocppTag.cache.hits", () -> ocppTagStateCache.stats().hitCount());
+        metricsService.registerGauge("ocppTag.cache.misses", () -> ocppTagStateCache.stats().missCount());
+        metricsService.registerGauge("ocppTag.cache.size", ocppTagStateCache::size);
+    }
+
     public List<AuthorizationData> getAuthDataOfAllTags() {
         return ocppTagRepository.getRecords()
                                 .map(new AuthorisationDataMapper());
@@ -80,8 +92,8 @@ public class OcppTagService {
             return null;
         }
 
-        OcppTagActivityRecord record = ocppTagRepository.getRecord(idTag);
-        AuthorizationStatus status = decideStatus(record, idTag, isStartTransactionReqContext);
+        OcppTagState state = ocppTagStateCache.get(idTag, this::loadState);
+        AuthorizationStatus status = decideStatus(state, idTag, isStartTransactionReqContext);
 
         switch (status) {
             case INVALID:
@@ -93,8 +105,8 @@ public class OcppTagService {
             case CONCURRENT_TX:
             case ACCEPTED:
                 return new IdTagInfo().withStatus(status)
-                                      .withParentIdTag(record.getParentIdTag())
-                                      .withExpiryDate(getExpiryDateOrDefault(record));
+                                      .withParentIdTag(state.getParentIdTag())
+                                      .withExpiryDate(getExpiryDateOrDefault(state));
             default:
                 throw new SteveException("Unexpected AuthorizationStatus");
         }
@@ -114,13 +126,19 @@ public class OcppTagService {
     // Private helpers
     // -------------------------------------------------------------------------
 
+    @Nullable
+    private OcppTagState loadState(String idTag) {
+        OcppTagActivityRecord record = ocppTagRepository.getRecord(idTag);
+        return (record == null) ? null : OcppTagState.of(record);
+    }
+
     /**
      * If the database contains an actual expiry, use it. Otherwise, calculate an expiry for cached info
      */
     @Nullable
-    private DateTime getExpiryDateOrDefault(OcppTagActivityRecord record) {
-        if (record.getExpiryDate() != null) {
-            return record.getExpiryDate();
+    private DateTime getExpiryDateOrDefault(OcppTagState state) {
+        if (state.getExpiryDate() != null) {
+            return state.getExpiryDate();
         }
 
         int hoursToExpire = settingsRepository.getHoursToExpire();
@@ -133,66 +151,66 @@ public class OcppTagService {
         }
     }
 
-    private AuthorizationStatus decideStatus(OcppTagActivityRecord record, String idTag, boolean isStartTransactionReqContext) {
-        if (record == null) {
+    private AuthorizationStatus decideStatus(OcppTagState state, String idTag, boolean isStartTransactionReqContext) {
+        if (state == null) {
             log.error("The user with idTag '{}' is INVALID (not present in DB).", idTag);
             return AuthorizationStatus.INVALID;
         }
 
-        if (isBlocked(record)) {
+        if (isBlocked(state)) {
             log.error("The user with idTag '{}' is BLOCKED.", idTag);
             return AuthorizationStatus.BLOCKED;
         }
 
-        if (isExpired(record, DateTime.now())) {
+        if (isExpired(state, DateTime.now())) {
             log.error("The user with idTag '{}' is EXPIRED.", idTag);
             return AuthorizationStatus.EXPIRED;
         }
 
         // https://github.com/RWTH-i5-IDSG/steve/issues/219
-        if (isStartTransactionReqContext && reachedLimitOfActiveTransactions(record)) {
+        if (isStartTransactionReqContext && reachedLimitOfActiveTransactions(state)) {
             log.warn("The user with idTag '{}' is ALREADY in another transaction(s).", idTag);
             return AuthorizationStatus.CONCURRENT_TX;
         }
 
-        log.debug("The user with idTag '{}' is ACCEPTED.", record.getIdTag());
+        log.debug("The user with idTag '{}' is ACCEPTED.", state.getIdTag());
         return AuthorizationStatus.ACCEPTED;
     }
 
     /**
      * ConcurrentTx is only valid for StartTransactionRequest
      */
-    private static ocpp.cp._2015._10.AuthorizationStatus decideStatusForAuthData(OcppTagActivityRecord record, DateTime now) {
-        if (isBlocked(record)) {
+    private static ocpp.cp._2015._10.AuthorizationStatus decideStatusForAuthData(OcppTagState state, DateTime now) {
+        if (isBlocked(state)) {
             return ocpp.cp._2015._10.AuthorizationStatus.BLOCKED;
-        } else if (isExpired(record, now)) {
+        } else if (isExpired(state, now)) {
             return ocpp.cp._2015._10.AuthorizationStatus.EXPIRED;
-//        } else if (reachedLimitOfActiveTransactions(record)) {
+//        } else if (reachedLimitOfActiveTransactions(state)) {
 //            return ocpp.cp._2015._10.AuthorizationStatus.CONCURRENT_TX;
         } else {
             return ocpp.cp._2015._10.AuthorizationStatus.ACCEPTED;
         }
     }
 
-    private static boolean isExpired(OcppTagActivityRecord record, DateTime now) {
-        DateTime expiry = record.getExpiryDate();
+    private static boolean isExpired(OcppTagState state, DateTime now) {
+        DateTime expiry = state.getExpiryDate();
         return expiry != null && now.isAfter(expiry);
     }
 
-    private static boolean isBlocked(OcppTagActivityRecord record) {
-        return getToggle(record) == ConcurrencyToggle.Blocked;
+    private static boolean isBlocked(OcppTagState state) {
+        return getToggle(state) == ConcurrencyToggle.Blocked;
     }
 
-    private static boolean reachedLimitOfActiveTransactions(OcppTagActivityRecord record) {
-        ConcurrencyToggle toggle = getToggle(record);
+    private static boolean reachedLimitOfActiveTransactions(OcppTagState state) {
+        ConcurrencyToggle toggle = getToggle(state);
         switch (toggle) {
             case Blocked:
                 return true; // for completeness
             case AllowAll:
                 return false;
             case AllowAsSpecified:
-                int max = record.getMaxActiveTransactionCount();
-                long active = record.getActiveTransactionCount();
+                int max = state.getMaxActiveTransactionCount();
+                int active = state.getActiveTransactionCount();
                 return active >= max;
             default:
                 throw new RuntimeException("Unexpected ConcurrencyToggle");
@@ -209,7 +227,7 @@ public class OcppTagService {
             return new AuthorizationData().withIdTag(record.getIdTag())
                                           .withIdTagInfo(
                                                   new ocpp.cp._2015._10.IdTagInfo()
-                                                          .withStatus(decideStatusForAuthData(record, nowDt))
+                                                          .withStatus(decideStatusForAuthData(OcppTagState.of(record), nowDt))
                                                           .withParentIdTag(record.getParentIdTag())
                                                           .withExpiryDate(record.getExpiryDate())
                                           );
@@ -220,8 +238,8 @@ public class OcppTagService {
         Blocked, AllowAll, AllowAsSpecified
     }
 
-    private static ConcurrencyToggle getToggle(OcppTagActivityRecord r) {
-        int max = r.getMaxActiveTransactionCount();
+    private static ConcurrencyToggle getToggle(OcppTagState s) {
+        int max = s.getMaxActiveTransactionCount();
         if (max == 0) {
             return ConcurrencyToggle.Blocked;
         } else if (max < 0) {
@@ -0,0 +1,332 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.rwth.idsg.steve.SteveConfiguration;
+import de.rwth.idsg.steve.repository.RetentionRepository;
+import de.rwth.idsg.steve.service.dto.RetentionPolicyStatus;
+import de.rwth.idsg.steve.utils.DateTimeUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.joda.time.DateTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Keeps the history tables from growing forever. Once per hour, for each policy with a retention period:
+ *
+ * 1) Rows older than the period are aggregated into the next coarser resolution (raw meter values into 15-minute
+ * buckets, 15-minute buckets into daily buckets). This happens in time windows, and the progress is stored in the
+ * database. A window can be repeated safely, since the aggregation overwrites its buckets.
+ *
+ * 2) The aggregated rows are deleted in small chunks, with a short pause in between, such that the locks on the hot
+ * tables are held only briefly.
+ *
+ * Meter values that arrive with a timestamp older than the aggregated range are deleted without being aggregated.
+ * The raw retention period should therefore be longer than the time a station can buffer values while offline.
+ *
+ * @since 18.10.2026
+ */
+@Slf4j
+@Service
+public class RetentionService {
+
+    private static final int RESOLUTION_15_MIN = 15;
+    private static final int RESOLUTION_DAILY = 24 * 60;
+
+    private static final long INITIAL_DELAY_MINUTES = 10;
+    private static final long RUN_INTERVAL_MINUTES = 60;
+    private static final long PAUSE_BETWEEN_CHUNKS_MILLIS = 50;
+
+    @Autowired private RetentionRepository retentionRepository;
+    @Autowired private MetricsService metricsService;
+
+    private final Map<Policy, Progress> progressMap = createProgressMap();
+
+    private ScheduledExecutorService executor;
+    private volatile boolean stopped;
+
+    private LongAdder rolledUpCounter;
+    private LongAdder deletedCounter;
+
+    @PostConstruct
+    public void init() {
+        if (!CONFIG.getRetention().isEnabled()) {
+            return;
+        }
+
+        rolledUpCounter = metricsService.counter("retention.rolledUpRows");
+        deletedCounter = metricsService.counter("retention.deletedRows");
+
+        // A run can take long, so it gets its own thread instead of occupying the shared scheduled executor
+        executor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("SteVe-Retention-%d")
+                                          .build()
+        );
+        executor.scheduleWithFixedDelay(this::runSafely, INITIAL_DELAY_MINUTES, RUN_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutDown() {
+        if (executor == null) {
+            return;
+        }
+
+        // The current run stops after the current chunk
+        stopped = true;
+        try {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            log.error("Termination interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public List<RetentionPolicyStatus> getStatus() {
+        return Arrays.stream(Policy.values())
+                     .map(this::toStatus)
+                     .collect(Collectors.toList());
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private void runSafely() {
+        for (Policy policy : Policy.values()) {
+            int days = policy.getRetentionDays(CONFIG.getRetention());
+            if (days <= 0 || stopped) {
+                continue;
+            }
+
+            DateTime cutoff = DateTime.now().minusDays(days).withTimeAtStartOfDay();
+            Progress progress = progressMap.get(policy);
+            progress.started(cutoff);
+            try {
+                run(policy, progress, cutoff);
+                progress.finished("Idle");
+            } catch (Exception e) {
+                // Do not let the exception cancel the periodic run
+                log.error("Retention run of policy '{}' failed", policy, e);
+                progress.finished("Failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void run(Policy policy, Progress progress, DateTime cutoff) throws InterruptedException {
+        int batchSize = CONFIG.getRetention().getDeleteBatchSize();
+
+        switch (policy) {
+            case METER_VALUES_RAW:
+                DateTime rawDoneUntil = rollup(policy, progress, cutoff, RESOLUTION_15_MIN, 1,
+                        retentionRepository.getOldestMeterValueTimestamp(),
+                        (from, to) -> retentionRepository.rollupMeterValues(from, to, RESOLUTION_15_MIN));
+                deleteInChunks(progress,
+                        limit -> retentionRepository.deleteMeterValues(rawDoneUntil, limit),
+                        batchSize);
+                break;
+
+            case METER_VALUES_15_MIN:
+                DateTime qDoneUntil = rollup(policy, progress, cutoff, RESOLUTION_DAILY, 24,
+                        retentionRepository.getOldestMeterValueRollupTimestamp(RESOLUTION_15_MIN),
+                        (from, to) -> retentionRepository.rollupMeterValueRollups(from, to, RESOLUTION_15_MIN,
+                                RESOLUTION_DAILY));
+                deleteInChunks(progress,
+                        limit -> retentionRepository.deleteMeterValueRollups(RESOLUTION_15_MIN, qDoneUntil, limit),
+                        batchSize);
+                break;
+
+            case METER_VALUES_DAILY:
+                deleteInChunks(progress,
+                        limit -> retentionRepository.deleteMeterValueRollups(RESOLUTION_DAILY, cutoff, limit),
+                        batchSize);
+                break;
+
+            case CONNECTOR_STATUS:
+                // The current status of every connector is in connector_status_latest, and is not affected
+                deleteInChunks(progress,
+                        limit -> retentionRepository.deleteConnectorStatuses(cutoff, limit),
+                        batchSize);
+                break;
+
+            default:
+                throw new IllegalStateException("Unknown policy: " + policy);
+        }
+    }
+
+    /**
+     * Aggregates the rows before the cutoff in windows of the given hours, starting where the last run stopped
+     *
+     * @return until when the rows are aggregated, i.e. the rows before this timestamp can be deleted
+     */
+    private DateTime rollup(Policy policy, Progress progress, DateTime cutoff, int resolutionMinutes, int windowHours,
+                            Optional<DateTime> oldest, RollupFunction function) {
+        String name = policy.name();
+        DateTime doneUntil = retentionRepository.getDoneUntil(name).orElse(null);
+
+        // Skip the empty range between the last aggregated window and the oldest row
+        DateTime from = oldest.map(DateTime::withTimeAtStartOfDay)
+                              .filter(ts -> doneUntil == null || ts.isAfter(doneUntil))
+                              .orElse(doneUntil);
+        if (from == null) {
+            // there are no rows at all
+            return cutoff;
+        }
+
+        while (from.isBefore(cutoff) && !stopped) {
+            DateTime to = from.plusHours(windowHours);
+            if (to.isAfter(cutoff)) {
+                to = cutoff;
+            }
+
+            int rows = function.rollup(from, to);
+            retentionRepository.setDoneUntil(name, to);
+
+            rolledUpCounter.add(rows);
+            progress.processed(rows);
+            log.debug("Policy '{}': Aggregated [{}, {}) into {} rows of {} minutes", name, from, to, rows,
+                    resolutionMinutes);
+            from = to;
+        }
+        return from;
+    }
+
+    private void deleteInChunks(Progress progress, IntUnaryOperator deleteFunction, int batchSize)
+            throws InterruptedException {
+        progress.state = "Deleting";
+
+        int deleted;
+        do {
+            deleted = deleteFunction.applyAsInt(batchSize);
+            deletedCounter.add(deleted);
+            progress.processed(deleted);
+
+            if (deleted == batchSize) {
+                Thread.sleep(PAUSE_BETWEEN_CHUNKS_MILLIS);
+            }
+        } while (deleted == batchSize && !stopped);
+    }
+
+    private RetentionPolicyStatus toStatus(Policy policy) {
+        Progress progress = progressMap.get(policy);
+        return RetentionPolicyStatus.builder()
+                                    .policy(policy.description)
+                                    .retentionDays(policy.getRetentionDays(CONFIG.getRetention()))
+                                    .state(progress.state)
+                                    .cutoff(DateTimeUtils.humanize(progress.cutoff))
+                                    .processedRows(progress.processedRows)
+                                    .rowsPerSecond(progress.getRowsPerSecond())
+                                    .lastRunStarted(DateTimeUtils.humanize(progress.lastRunStarted))
+                                    .lastRunFinished(DateTimeUtils.humanize(progress.lastRunFinished))
+                                    .build();
+    }
+
+    private static Map<Policy, Progress> createProgressMap() {
+        Map<Policy, Progress> map = new EnumMap<>(Policy.class);
+        for (Policy policy : Policy.values()) {
+            map.put(policy, new Progress());
+        }
+        return map;
+    }
+
+    @FunctionalInterface
+    private interface RollupFunction {
+        int rollup(DateTime from, DateTime to);
+    }
+
+    @RequiredArgsConstructor
+    private enum Policy {
+        METER_VALUES_RAW("Raw meter values (aggregated into 15-minute buckets)"),
+        METER_VALUES_15_MIN("15-minute meter value buckets (aggregated into daily buckets)"),
+        METER_VALUES_DAILY("Daily meter value buckets"),
+        CONNECTOR_STATUS("Connector status history");
+
+        private final String description;
+
+        private int getRetentionDays(SteveConfiguration.Retention r) {
+            switch (this) {
+                case METER_VALUES_RAW: return r.getMeterValuesRawDays();
+                case METER_VALUES_15_MIN: return r.getMeterValues15MinDays();
+                case METER_VALUES_DAILY: return r.getMeterValuesDailyDays();
+                case CONNECTOR_STATUS: return r.getConnectorStatusDays();
+                default: throw new IllegalStateException("Unknown policy: " + this);
+            }
+        }
+    }
+
+    /**
+     * The progress of the current (or last) run of a policy. Only written by the retention thread.
+     */
+    private static class Progress {
+        private volatile String state = "Idle";
+        private volatile DateTime cutoff;
+        private volatile long processedRows;
+        private volatile long startedNanos;
+        private volatile long finishedNanos;
+        private volatile DateTime lastRunStarted;
+        private volatile DateTime lastRunFinished;
+
+        private void started(DateTime cutoff) {
+            this.cutoff = cutoff;
+            this.state = "Aggregating";
+            this.processedRows = 0;
+            this.startedNanos = System.nanoTime();
+            this.finishedNanos = 0;
+            this.lastRunStarted = DateTime.now();
+        }
+
+        private void processed(int rows) {
+            processedRows += rows;
+        }
+
+        private void finished(String state) {
+            this.state = state;
+            this.finishedNanos = System.nanoTime();
+            this.lastRunFinished = DateTime.now();
+        }
+
+        private long getRowsPerSecond() {
+            if (startedNanos == 0) {
+                return 0;
+            }
+            long end = (finishedNanos == 0) ? System.nanoTime() : finishedNanos;
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(end - startedNanos);
+            return (elapsedMillis == 0) ? 0 : processedRows * 1000 / elapsedMillis;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.service;
+
+import de.rwth.idsg.steve.repository.ChargePointRepository;
+import de.rwth.idsg.steve.repository.GenericRepository;
+import de.rwth.idsg.steve.repository.dto.ConnectorStatus;
+import de.rwth.idsg.steve.utils.ConnectorStatusCountFilter;
+import de.rwth.idsg.steve.utils.DateTimeUtils;
+import de.rwth.idsg.steve.web.dto.Statistics;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.joda.time.DateTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The statistics on the home page used to be computed with a dozen aggregate queries for every page view. Instead,
+ * we read them from the database at fixed intervals and keep them in memory. In between, the values that change with
+ * the OCPP messages (the active transactions and the connector statuses) are updated incrementally by
+ * OcppServerRepository, such that the page shows them without delay. This covers all OCPP versions and the manual
+ * stop of a transaction. Any drift of the incremental updates is corrected with the next reconciliation.
+ *
+ * @since 18.10.2026
+ */
+@Slf4j
+@Service
+public class StatisticsService {
+
+    private static final long RECONCILE_INTERVAL_SECONDS = 60;
+
+    @Autowired private GenericRepository genericRepository;
+    @Autowired private ChargePointRepository chargePointRepository;
+    @Autowired private ScheduledExecutorService executorService;
+    @Autowired private MetricsService metricsService;
+
+    // The latest status per connector
+    private final Map<ConnectorKey, ConnectorStatus> latestStatusMap = new ConcurrentHashMap<>();
+
+    // The change of active transactions since the last reconciliation
+    private final AtomicInteger transactionDelta = new AtomicInteger();
+
+    private volatile Statistics fromDatabase;
+    private volatile Map<String, Integer> statusCountMap;
+    private volatile boolean statusCountMapStale = true;
+
+    private ScheduledFuture<?> reconcileSchedule;
+    private MetricsService.Timer reconcileTimer;
+
+    @PostConstruct
+    public void init() {
+        reconcileTimer = metricsService.timer("statistics.reconcile");
+
+        reconcileSchedule = executorService.scheduleWithFixedDelay(
+                this::reconcileSafely, 0, RECONCILE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (reconcileSchedule != null) {
+            reconcileSchedule.cancel(false);
+        }
+    }
+
+    /**
+     * @return a new object each time, which the caller can complete with further values
+     */
+    public Statistics getSnapshot() {
+        Statistics db = fromDatabase;
+        if (db == null) {
+            // The first reconciliation did not run (or failed) yet
+            reconcile();
+            db = fromDatabase;
+        }
+
+        Statistics stats = Statistics.builder()
+                                     .numChargeBoxes(db.getNumChargeBoxes())
+                                     .numOcppTags(db.getNumOcppTags())
+                                     .numUsers(db.getNumUsers())
+                                     .numReservations(db.getNumReservations())
+                                     .numTransactions(Math.max(db.getNumTransactions() + transactionDelta.get(), 0))
+                                     .heartbeatToday(db.getHeartbeatToday())
+                                     .heartbeatYesterday(db.getHeartbeatYesterday())
+                                     .heartbeatEarlier(db.getHeartbeatEarlier())
+                                     .build();
+
+        stats.setStatusCountMap(getStatusCountMap());
+        return stats;
+    }
+
+    public void transactionStarted() {
+        transactionDelta.incrementAndGet();
+    }
+
+    public void transactionStopped() {
+        transactionDelta.decrementAndGet();
+    }
+
+    public void connectorStatusChanged(String chargeBoxId, int connectorId, String status, String errorCode,
+                                       DateTime timestamp) {
+        ConnectorStatus newStatus = ConnectorStatus.builder()
+                                                   .chargeBoxId(chargeBoxId)
+                                                   .connectorId(connectorId)
+                                                   .status(status)
+                                                   .errorCode(errorCode)
+                                                   .timeStamp(DateTimeUtils.humanize(timestamp))
+                                                   .statusTimestamp(timestamp)
+                                                   .build();
+
+        putLatest(newStatus);
+        statusCountMapStale = true;
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private Map<String, Integer> getStatusCountMap() {
+        if (statusCountMapStale) {
+            // Reset the flag first, such that a concurrent change marks it stale again
+            statusCountMapStale = false;
+            statusCountMap = ConnectorStatusCountFilter.getStatusCountMap(new ArrayList<>(latestStatusMap.values()));
+        }
+        return statusCountMap;
+    }
+
+    /**
+     * Same as in the database, an older status does not replace a more recent one
+     */
+    private ConnectorKey putLatest(ConnectorStatus status) {
+        ConnectorKey key = new ConnectorKey(status.getChargeBoxId(), status.getConnectorId());
+        latestStatusMap.merge(key, status, (oldValue, newValue) -> isOlder(newValue, oldValue) ? oldValue : newValue);
+        return key;
+    }
+
+    private static boolean isOlder(ConnectorStatus a, ConnectorStatus b) {
+        if (a.getStatusTimestamp() == null || b.getStatusTimestamp() == null) {
+            return a.getStatusTimestamp() == null && b.getStatusTimestamp() != null;
+        }
+        return a.getStatusTimestamp().isBefore(b.getStatusTimestamp());
+    }
+
+    private void reconcileSafely() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            // Do not let the exception cancel the periodic reconciliation
+            log.error("Failed to reconcile the statistics", e);
+        }
+    }
+
+    /**
+     * The changes that happen while the queries run might be counted twice until the next reconciliation, which is
+     * acceptable for the home page.
+     */
+    private synchronized void reconcile() {
+        long start = System.nanoTime();
+
+        int delta = transactionDelta.get();
+        Statistics db = genericRepository.getStats();
+        transactionDelta.addAndGet(-delta);
+
+        Set<ConnectorKey> keys = new HashSet<>();
+        for (ConnectorStatus s : chargePointRepository.getChargePointConnectorStatus()) {
+            keys.add(putLatest(s));
+        }
+
+        // Remove the connectors that are not in the database anymore (e.g. deleted charge points)
+        latestStatusMap.keySet().retainAll(keys);
+
+        fromDatabase = db;
+        statusCountMapStale = true;
+
+        reconcileTimer.record(System.nanoTime() - start);
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class ConnectorKey {
+        private final String chargeBoxId;
+        private final int connectorId;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.service.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * @since 18.10.2026
+ */
+@Getter
+@Builder
+public class RetentionPolicyStatus {
+    private final String policy;
+    private final int retentionDays;
+    private final String state;
+    private final String cutoff;
+
+    // Of the current run, or of the last one, if none is running
+    private final long processedRows;
+    private final long rowsPerSecond;
+    private final String lastRunStarted;
+    private final String lastRunFinished;
+}
@@ -0,0 +1,184 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A timer for a large number of timeouts that are mostly cancelled before they expire (e.g. deadlines of requests),
+ * in the spirit of Netty's HashedWheelTimer. Instead of one scheduled future per timeout, there is one periodic tick
+ * on the given executor, which walks one bucket of the wheel at a time. Adding and cancelling are O(1), and the
+ * precision is one tick.
+ *
+ * The tasks of expired timeouts run on the tick thread, and therefore must be short and must not block.
+ *
+ * @since 18.10.2026
+ */
+@Slf4j
+public class HashedWheelTimer {
+
+    private final long tickNanos;
+    private final ArrayDeque<Timeout>[] wheel;
+    private final int mask;
+
+    // New timeouts are handed over to the tick, which is the only one to touch the wheel
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+    private final long startTime = System.nanoTime();
+
+    // Guarded by "this"
+    private long tick;
+    private ScheduledFuture<?> tickSchedule;
+
+    /**
+     * @param wheelSize is rounded up to the next power of two
+     */
+    @SuppressWarnings("unchecked")
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int wheelSize) {
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheel = new ArrayDeque[size];
+        this.mask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayDeque<>();
+        }
+    }
+
+    public synchronized void start(ScheduledExecutorService executorService) {
+        if (tickSchedule == null) {
+            tickSchedule = executorService.scheduleAtFixedRate(this::tick, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (tickSchedule != null) {
+            tickSchedule.cancel(false);
+            tickSchedule = null;
+        }
+    }
+
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        Timeout timeout = new Timeout(task, System.nanoTime() - startTime + unit.toNanos(delay));
+        newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private synchronized void tick() {
+        try {
+            transferNewTimeouts();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        } catch (Exception e) {
+            // Do not let the exception cancel the periodic tick
+            log.error("Exception occurred", e);
+        }
+    }
+
+    private void transferNewTimeouts() {
+        Timeout timeout;
+        while ((timeout = newTimeouts.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+
+            // Deadlines in the past are put into the current bucket, so that they expire with this tick
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private static void expire(ArrayDeque<Timeout> bucket) {
+        Iterator<Timeout> it = bucket.iterator();
+        while (it.hasNext()) {
+            Timeout timeout = it.next();
+            if (timeout.isCancelled()) {
+                it.remove();
+
+            } else if (timeout.remainingRounds <= 0) {
+                it.remove();
+                timeout.expire();
+
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Class declarations
+    // -------------------------------------------------------------------------
+
+    public static final class Timeout {
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(ST_INIT);
+
+        // Only accessed by the tick
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return false, if the timeout already expired (or was cancelled before)
+         */
+        public boolean cancel() {
+            return state.compareAndSet(ST_INIT, ST_CANCELLED);
+        }
+
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+                return;
+            }
+
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Exception occurred in the task of an expired timeout", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits events at a constant rate, and allows bursts up to the capacity after an idle period.
+ *
+ * @since 18.10.2026
+ */
+public class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double capacity;
+
+    // Guarded by "this"
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * Starts with a full bucket
+     */
+    public TokenBucket(double ratePerSecond, double capacity) {
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * @param now as returned by {@link System#nanoTime()}
+     * @return 0, if a token is acquired. Otherwise, the nanos until the next token is available
+     */
+    public synchronized long tryAcquire(long now) {
+        if (now > lastRefillNanos) {
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+            lastRefillNanos = now;
+        }
+
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+}
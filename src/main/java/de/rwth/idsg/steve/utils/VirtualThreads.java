@@ -0,0 +1,89 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Virtual threads are only available with Java 21+, but we compile against an older version. Therefore, the API
+ * is looked up via reflection and we fall back to platform threads, if it is not there.
+ *
+ * @since 18.10.2026
+ */
+@Slf4j
+public final class VirtualThreads {
+    private VirtualThreads() { }
+
+    private static final boolean AVAILABLE = checkAvailable();
+
+    /**
+     * @return true, if virtual threads are enabled in the configuration AND the running JVM supports them
+     */
+    public static boolean isEnabled() {
+        return CONFIG.isVirtualThreadsEnabled() && AVAILABLE;
+    }
+
+    public static void warnIfUnavailable() {
+        if (CONFIG.isVirtualThreadsEnabled() && !AVAILABLE) {
+            log.warn("Virtual threads are enabled in the configuration, but not supported by the running JVM "
+                    + "(Java 21+ is required). Falling back to platform threads");
+        }
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task. The threads are named with the given
+     * prefix and a counter (e.g. "SteVe-Virtual-0").
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        if (!AVAILABLE) {
+            throw new IllegalStateException("Virtual threads are not supported by the running JVM");
+        }
+
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+
+            Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newExecutor.invoke(null, threadFactory);
+
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create an executor with virtual threads", e);
+        }
+    }
+
+    private static boolean checkAvailable() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import de.rwth.idsg.steve.ocpp.OcppProtocol;
 import de.rwth.idsg.steve.repository.ChargePointRepository;
 import de.rwth.idsg.steve.repository.dto.ChargePoint;
 import de.rwth.idsg.steve.service.ChargePointHelperService;
+import de.rwth.idsg.steve.service.HeartbeatService;
 import de.rwth.idsg.steve.utils.ControllerHelper;
 import de.rwth.idsg.steve.web.dto.ChargePointBatchInsertForm;
 import de.rwth.idsg.steve.web.dto.ChargePointForm;
@@ -53,6 +54,7 @@ public class ChargePointsController {
 
     @Autowired protected ChargePointRepository chargePointRepository;
     @Autowired protected ChargePointHelperService chargePointHelperService;
+    @Autowired protected HeartbeatService heartbeatService;
 
     protected static final String PARAMS = "params";
 
@@ -102,7 +104,7 @@ public class ChargePointsController {
 
     private void initList(Model model, ChargePointQueryForm params) {
         model.addAttribute(PARAMS, params);
-        model.addAttribute("cpList", chargePointRepository.getOverview(params));
+        model.addAttribute("cpList", heartbeatService.withLastSeen(chargePointRepository.getOverview(params)));
         model.addAttribute("unknownList", chargePointHelperService.getUnknownChargePoints());
     }
 
@@ -110,6 +112,11 @@ public class ChargePointsController {
     public String getDetails(@PathVariable("chargeBoxPk") int chargeBoxPk, Model model) {
         ChargePoint.Details cp = chargePointRepository.getDetails(chargeBoxPk);
 
+        // The record is detached, and setting the value changes nothing in the database
+        ChargeBoxRecord chargeBox = cp.getChargeBox();
+        chargeBox.setLastHeartbeatTimestamp(
+                heartbeatService.getLastSeen(chargeBox.getChargeBoxId(), chargeBox.getLastHeartbeatTimestamp()));
+
         ChargePointForm form = new ChargePointForm();
         form.setChargeBoxPk(cp.getChargeBox().getChargeBoxPk());
         form.setChargeBoxId(cp.getChargeBox().getChargeBoxId());
@@ -18,9 +18,12 @@
  */
 package de.rwth.idsg.steve.web.controller;
 
+import de.rwth.idsg.steve.ocpp.ws.IncomingRateLimiter;
 import de.rwth.idsg.steve.repository.ChargePointRepository;
 import de.rwth.idsg.steve.repository.dto.ConnectorStatus;
 import de.rwth.idsg.steve.service.ChargePointHelperService;
+import de.rwth.idsg.steve.service.MetricsService;
+import de.rwth.idsg.steve.service.RetentionService;
 import de.rwth.idsg.steve.utils.ConnectorStatusCountFilter;
 import de.rwth.idsg.steve.utils.ConnectorStatusFilter;
 import de.rwth.idsg.steve.web.dto.ConnectorStatusForm;
@@ -45,6 +48,9 @@ public class HomeController {
 
     @Autowired private ChargePointRepository chargePointRepository;
     @Autowired private ChargePointHelperService chargePointHelperService;
+    @Autowired private MetricsService metricsService;
+    @Autowired private RetentionService retentionService;
+    @Autowired private IncomingRateLimiter incomingRateLimiter;
 
     private static final String PARAMS = "params";
 
@@ -57,6 +63,7 @@ public class HomeController {
     private static final String OCPP_JSON_STATUS = HOME_PREFIX + "/ocppJsonStatus";
     private static final String CONNECTOR_STATUS_PATH = HOME_PREFIX + "/connectorStatus";
     private static final String CONNECTOR_STATUS_QUERY_PATH = HOME_PREFIX + "/connectorStatus/query";
+    private static final String METRICS_PATH = HOME_PREFIX + "/metrics";
     // -------------------------------------------------------------------------
     // HTTP methods
     // -------------------------------------------------------------------------
@@ -89,4 +96,12 @@ public class HomeController {
         model.addAttribute("ocppJsonStatusList", chargePointHelperService.getOcppJsonStatus());
         return "ocppJsonStatus";
     }
+
+    @RequestMapping(value = METRICS_PATH)
+    public String getMetrics(Model model) {
+        model.addAttribute("metrics", metricsService.getSnapshot());
+        model.addAttribute("retentionList", retentionService.getStatus());
+        model.addAttribute("throttledList", incomingRateLimiter.getThrottledStations());
+        return "metrics";
+    }
 }
@@ -34,10 +34,16 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * One controller for transactions and reservations pages
@@ -64,6 +70,7 @@ public class TransactionsReservationsController {
     private static final String TRANSACTIONS_PATH = "/transactions";
     private static final String TRANSACTION_STOP_PATH = "/transactions/stop/{transactionPk}";
     private static final String TRANSACTIONS_DETAILS_PATH = "/transactions/details/{transactionPk}";
+    private static final String TRANSACTIONS_DETAILS_CSV_PATH = "/transactions/details/{transactionPk}/csv";
     private static final String TRANSACTIONS_QUERY_PATH = "/transactions/query";
     private static final String RESERVATIONS_PATH = "/reservations";
     private static final String RESERVATIONS_QUERY_PATH = "/reservations/query";
@@ -94,6 +101,14 @@ public class TransactionsReservationsController {
         return "data-man/transactionDetails";
     }
 
+    @RequestMapping(value = TRANSACTIONS_DETAILS_CSV_PATH)
+    public void getTransactionMeterValuesCSV(@PathVariable("transactionPk") int transactionPk,
+                                             @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+                                             HttpServletResponse response) throws IOException {
+        writeCSV(response, "transaction-" + transactionPk + "-meter-values", gzip,
+                writer -> transactionRepository.writeMeterValuesCSV(transactionPk, writer));
+    }
+
     @RequestMapping(value = TRANSACTIONS_QUERY_PATH)
     public String getTransactionsQuery(@Valid @ModelAttribute(PARAMS) TransactionQueryForm params,
                                        BindingResult result, Model model,
@@ -105,12 +120,8 @@ public class TransactionsReservationsController {
         }
 
         if (params.isReturnCSV()) {
-            String fileName = "transactions.csv";
-            String headerKey = "Content-Disposition";
-            String headerValue = String.format("attachment; filename=\"%s\"", fileName);
-            response.setContentType("text/csv");
-            response.setHeader(headerKey, headerValue);
-            transactionRepository.writeTransactionsCSV(params, response.getWriter());
+            writeCSV(response, "transactions", params.isGzipCSV(),
+                    writer -> transactionRepository.writeTransactionsCSV(params, writer));
             return null;
 
         } else {
@@ -143,6 +154,30 @@ public class TransactionsReservationsController {
         return "data-man/reservations";
     }
 
+    /**
+     * The rows are written to the response while they are read from the database, i.e. the export is never in
+     * memory as a whole
+     */
+    private static void writeCSV(HttpServletResponse response, String baseName, boolean gzip,
+                                 Consumer<Writer> consumer) throws IOException {
+        String fileName = gzip ? baseName + ".csv.gz" : baseName + ".csv";
+        String headerKey = "Content-Disposition";
+        String headerValue = String.format("attachment; filename=\"%s\"", fileName);
+        response.setContentType(gzip ? "application/gzip" : "text/csv");
+        response.setHeader(headerKey, headerValue);
+
+        if (gzip) {
+            GZIPOutputStream gzipStream = new GZIPOutputStream(response.getOutputStream());
+            Writer writer = new OutputStreamWriter(gzipStream, StandardCharsets.UTF_8);
+            consumer.accept(writer);
+            writer.flush();
+            gzipStream.finish();
+        } else {
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            consumer.accept(response.getWriter());
+        }
+    }
+
     private void initList(Model model) {
         model.addAttribute("cpList", chargePointRepository.getChargeBoxIds());
         model.addAttribute("idTagList", ocppTagRepository.getIdTags());
@@ -38,6 +38,8 @@ public class TransactionQueryForm extends QueryForm {
 
     private boolean returnCSV;
 
+    private boolean gzipCSV;
+
     @NotNull(message = "Query type is required")
     private QueryType type;
 
@@ -48,6 +50,7 @@ public class TransactionQueryForm extends QueryForm {
      */
     public TransactionQueryForm() {
         returnCSV = false;
+        gzipCSV = false;
         periodType = QueryPeriodType.ALL;
         type = QueryType.ACTIVE;
     }
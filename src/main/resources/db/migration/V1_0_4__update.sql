@@ -0,0 +1,42 @@
+-- Aggregated meter values that replace the raw samples in connector_meter_value after the retention period.
+-- The dimensions are NOT NULL (with '' and 0 instead of NULL), since the primary key has to identify a bucket.
+
+CREATE TABLE connector_meter_value_rollup (
+  connector_pk INT(11) UNSIGNED NOT NULL,
+  transaction_pk INT(10) UNSIGNED NOT NULL DEFAULT 0, -- 0 if the samples did not belong to a transaction
+  resolution_minutes INT NOT NULL,
+  bucket_start TIMESTAMP(6) NOT NULL,
+  measurand varchar(64) NOT NULL DEFAULT '',
+  phase varchar(64) NOT NULL DEFAULT '',
+  location varchar(64) NOT NULL DEFAULT '',
+  unit varchar(64) NOT NULL DEFAULT '',
+
+  sample_count INT NOT NULL,
+  numeric_count INT NOT NULL, -- number of samples that are used for min, max and sum
+  min_value DECIMAL(30, 6) NULL,
+  max_value DECIMAL(30, 6) NULL,
+  sum_value DECIMAL(40, 6) NULL,
+  last_value TEXT NULL,
+  last_value_timestamp TIMESTAMP(6) NULL DEFAULT NULL,
+
+  PRIMARY KEY (connector_pk, resolution_minutes, bucket_start, transaction_pk, measurand, phase, location, unit)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_unicode_ci;
+
+ALTER TABLE `connector_meter_value_rollup`
+ADD INDEX `cmvr_resolution_bucket_start_idx` (`resolution_minutes`, `bucket_start`);
+
+ALTER TABLE `connector_meter_value_rollup`
+ADD CONSTRAINT `FK_connector_meter_value_rollup_connector_pk`
+FOREIGN KEY (`connector_pk`) REFERENCES `connector` (`connector_pk`) ON DELETE CASCADE ON UPDATE NO ACTION;
+
+-- Until when the rows of a retention policy are rolled up already
+CREATE TABLE retention_progress (
+  policy varchar(64) NOT NULL,
+  done_until TIMESTAMP(6) NULL DEFAULT NULL,
+
+  PRIMARY KEY (policy)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_unicode_ci;
+
+-- For the chunked deletes of old statuses
+ALTER TABLE `connector_status`
+ADD INDEX `connector_status_st_idx` (`status_timestamp`);
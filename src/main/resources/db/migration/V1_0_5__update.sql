@@ -0,0 +1,48 @@
+-- The `transaction` view used to find the latest stop event of a transaction with a correlated MAX(event_timestamp)
+-- subquery, and the `ocpp_tag_activity` view counted the active transactions of a tag by scanning that view. Both are
+-- now maintained on write, and the views become plain joins on primary keys.
+
+CREATE TABLE transaction_stop_latest (
+  transaction_pk INT(10) UNSIGNED NOT NULL,
+  event_timestamp TIMESTAMP(6) NOT NULL,
+
+  PRIMARY KEY (transaction_pk)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_unicode_ci;
+
+ALTER TABLE `transaction_stop_latest`
+ADD CONSTRAINT `FK_transaction_stop_latest_transaction_pk`
+FOREIGN KEY (`transaction_pk`) REFERENCES `transaction_start` (`transaction_pk`) ON DELETE CASCADE ON UPDATE NO ACTION;
+
+INSERT INTO transaction_stop_latest (transaction_pk, event_timestamp)
+SELECT transaction_pk, MAX(event_timestamp)
+FROM transaction_stop
+GROUP BY transaction_pk;
+
+ALTER TABLE `ocpp_tag`
+  ADD `active_transaction_count` INTEGER NOT NULL DEFAULT 0 AFTER `max_active_transaction_count`;
+
+UPDATE ocpp_tag
+  INNER JOIN (SELECT tx.id_tag, COUNT(*) AS cnt
+              FROM transaction_start tx
+              LEFT JOIN transaction_stop_latest l ON tx.transaction_pk = l.transaction_pk
+              WHERE l.transaction_pk IS NULL
+              GROUP BY tx.id_tag) tx_activity
+  ON ocpp_tag.id_tag = tx_activity.id_tag
+SET ocpp_tag.active_transaction_count = tx_activity.cnt;
+
+CREATE OR REPLACE VIEW `transaction` AS
+ SELECT
+  tx1.transaction_pk, tx1.connector_pk, tx1.id_tag, tx1.event_timestamp as 'start_event_timestamp', tx1.start_timestamp, tx1.start_value,
+  tx2.event_actor as 'stop_event_actor', tx2.event_timestamp as 'stop_event_timestamp', tx2.stop_timestamp, tx2.stop_value, tx2.stop_reason
+  FROM transaction_start tx1
+  LEFT JOIN transaction_stop_latest l
+    ON tx1.transaction_pk = l.transaction_pk
+  LEFT JOIN transaction_stop tx2
+    ON l.transaction_pk = tx2.transaction_pk AND l.event_timestamp = tx2.event_timestamp;
+
+CREATE OR REPLACE VIEW ocpp_tag_activity AS
+    SELECT
+      ocpp_tag.*,
+      CASE WHEN (ocpp_tag.active_transaction_count > 0) THEN TRUE ELSE FALSE END AS 'in_transaction',
+      CASE WHEN (ocpp_tag.max_active_transaction_count = 0) THEN TRUE ELSE FALSE END AS 'blocked'
+    FROM ocpp_tag;
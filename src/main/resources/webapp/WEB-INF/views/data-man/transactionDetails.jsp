@@ -42,6 +42,8 @@
     </center>
     <br>
     <section><span>Intermediate Meter Values</span></section>
+    <a href="${ctxPath}/manager/transactions/details/${details.transaction.id}/csv">Download as CSV</a>
+    (<a href="${ctxPath}/manager/transactions/details/${details.transaction.id}/csv?gzip=true">gzip</a>)
     <table class="res">
         <thead>
         <tr>
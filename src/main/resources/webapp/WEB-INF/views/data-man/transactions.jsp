@@ -83,6 +83,10 @@ Transactions
                 <td>Get as CSV?:</td>
                 <td><form:checkbox path="returnCSV"/></td>
             </tr>
+            <tr>
+                <td>Compress CSV (gzip)?:</td>
+                <td><form:checkbox path="gzipCSV"/></td>
+            </tr>
             <tr>
                 <td></td>
                 <td id="add_space">
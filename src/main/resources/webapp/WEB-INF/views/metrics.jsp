@@ -0,0 +1,115 @@
+<%--
+
+    SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+    Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+    All Rights Reserved.
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+--%>
+<%@ include file="00-header.jsp" %>
+<script type="text/javascript">
+    $(document).ready(function() {
+        <%@ include file="snippets/sortable.js" %>
+    });
+</script>
+<div class="content"><div>
+<section><span>
+Runtime Metrics
+    	<a class="tooltip" href="#"><img src="${ctxPath}/static/images/info.png" style="vertical-align:middle">
+            <span>These values are collected in memory since the start of the application, and are reset with every restart.</span>
+        </a>
+</span></section>
+    <table class="res">
+        <thead>
+            <tr>
+                <th data-sort="string">Name</th>
+                <th data-sort="string">Value</th>
+            </tr>
+        </thead>
+        <tbody>
+        <c:forEach items="${metrics}" var="m">
+            <tr><td>${m.key}</td>
+                <td>${m.value}</td>
+            </tr>
+        </c:forEach>
+        </tbody>
+    </table>
+<br>
+<section><span>
+Data Retention
+    	<a class="tooltip" href="#"><img src="${ctxPath}/static/images/info.png" style="vertical-align:middle">
+            <span>Old rows of the history tables are aggregated and deleted in the background once per hour.
+                A retention period of 0 days keeps the rows forever. The processed rows and the rate are of the
+                current run, or of the last one, if none is running.</span>
+        </a>
+</span></section>
+    <table class="res">
+        <thead>
+            <tr>
+                <th data-sort="string">Policy</th>
+                <th data-sort="int">Retention (days)</th>
+                <th data-sort="string">State</th>
+                <th data-sort="string">Cutoff</th>
+                <th data-sort="int">Processed Rows</th>
+                <th data-sort="int">Rows/Second</th>
+                <th data-sort="string">Last Run Started</th>
+                <th data-sort="string">Last Run Finished</th>
+            </tr>
+        </thead>
+        <tbody>
+        <c:forEach items="${retentionList}" var="r">
+            <tr><td>${r.policy}</td>
+                <td>${r.retentionDays}</td>
+                <td>${r.state}</td>
+                <td>${r.cutoff}</td>
+                <td>${r.processedRows}</td>
+                <td>${r.rowsPerSecond}</td>
+                <td>${r.lastRunStarted}</td>
+                <td>${r.lastRunFinished}</td>
+            </tr>
+        </c:forEach>
+        </tbody>
+    </table>
+<br>
+<section><span>
+Throttled Stations
+    	<a class="tooltip" href="#"><img src="${ctxPath}/static/images/info.png" style="vertical-align:middle">
+            <span>WebSocket/Json charge points that sent an action more often than its limit in the last 10 minutes.
+                The messages over the limit were not processed.</span>
+        </a>
+</span></section>
+    <table class="res">
+        <thead>
+            <tr>
+                <th data-sort="string">ChargeBox ID</th>
+                <th data-sort="string">Action</th>
+                <th data-sort="int">Limit (per minute)</th>
+                <th data-sort="int">Throttled Messages</th>
+                <th data-sort="date">Last Throttled</th>
+            </tr>
+        </thead>
+        <tbody>
+        <c:forEach items="${throttledList}" var="t">
+            <tr><td>${t.chargeBoxId}</td>
+                <td>${t.action}</td>
+                <td>${t.limitPerMinute}</td>
+                <td>${t.throttledCount}</td>
+                <td data-sort-value="${t.lastThrottledDT.millis}">${t.lastThrottled}</td>
+            </tr>
+        </c:forEach>
+        </tbody>
+    </table>
+</div></div>
+<%@ include file="00-footer.jsp" %>
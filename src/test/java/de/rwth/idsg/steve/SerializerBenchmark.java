@@ -0,0 +1,121 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import de.rwth.idsg.steve.ocpp.ws.JsonObjectMapper;
+import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonMessage;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonResult;
+import de.rwth.idsg.steve.ocpp.ws.pipeline.Serializer;
+import ocpp.cp._2015._10.ChangeConfigurationRequest;
+import ocpp.cs._2015._10.AuthorizationStatus;
+import ocpp.cs._2015._10.IdTagInfo;
+import ocpp.cs._2015._10.StartTransactionResponse;
+import org.joda.time.DateTime;
+import org.junit.Assert;
+
+import java.util.function.Function;
+
+/**
+ * Compares the streaming {@link Serializer} with the previous tree-based approach (build an ArrayNode, convert the
+ * payload with valueToTree, then write the tree as String). Not a unit test: run the main method manually.
+ *
+ * @since 18.10.2026
+ */
+public class SerializerBenchmark {
+
+    private static final int WARM_UP_COUNT = 200_000;
+    private static final int MEASURE_COUNT = 1_000_000;
+
+    private static final ObjectMapper MAPPER = JsonObjectMapper.INSTANCE.getMapper();
+
+    public static void main(String[] args) throws Exception {
+        OcppJsonCall call = new OcppJsonCall();
+        call.setMessageId("c0a80101-0000-4000-8000-000000000001");
+        call.setAction("ChangeConfiguration");
+        call.setPayload(new ChangeConfigurationRequest().withKey("HeartbeatInterval").withValue("300"));
+
+        OcppJsonResult result = new OcppJsonResult();
+        result.setMessageId("c0a80101-0000-4000-8000-000000000002");
+        result.setPayload(new StartTransactionResponse()
+                .withTransactionId(4711)
+                .withIdTagInfo(new IdTagInfo().withStatus(AuthorizationStatus.ACCEPTED)
+                                              .withExpiryDate(DateTime.now().plusHours(1))));
+
+        // Sanity check: both paths must produce the same frame
+        Assert.assertEquals(treeBased(call), streaming(call));
+        Assert.assertEquals(treeBased(result), streaming(result));
+
+        run("CALL        / tree     ", call, SerializerBenchmark::treeBased);
+        run("CALL        / streaming", call, SerializerBenchmark::streaming);
+        run("CALL_RESULT / tree     ", result, SerializerBenchmark::treeBased);
+        run("CALL_RESULT / streaming", result, SerializerBenchmark::streaming);
+    }
+
+    private static void run(String name, OcppJsonMessage msg, Function<OcppJsonMessage, String> fn) {
+        long sink = 0;
+        for (int i = 0; i < WARM_UP_COUNT; i++) {
+            sink += fn.apply(msg).length();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_COUNT; i++) {
+            sink += fn.apply(msg).length();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%s: %8.1f ns/op (sink: %d)%n", name, (double) elapsed / MEASURE_COUNT, sink);
+    }
+
+    private static String streaming(OcppJsonMessage msg) {
+        CommunicationContext context = new CommunicationContext(null, "benchmark");
+        context.setOutgoingMessage(msg);
+        Serializer.INSTANCE.accept(context);
+        return context.getOutgoingString();
+    }
+
+    /**
+     * The previous implementation, kept here only as the baseline
+     */
+    private static String treeBased(OcppJsonMessage msg) {
+        try {
+            ArrayNode array = MAPPER.createArrayNode()
+                                    .add(msg.getMessageType().getTypeNr())
+                                    .add(msg.getMessageId());
+
+            JsonNode payloadNode;
+            if (msg instanceof OcppJsonCall) {
+                OcppJsonCall call = (OcppJsonCall) msg;
+                array.add(call.getAction());
+                payloadNode = MAPPER.valueToTree(call.getPayload());
+            } else {
+                payloadNode = MAPPER.valueToTree(((OcppJsonResult) msg).getPayload());
+            }
+            array.add(payloadNode);
+
+            return MAPPER.writeValueAsString(array);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
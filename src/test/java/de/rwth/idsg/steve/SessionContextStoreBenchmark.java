@@ -0,0 +1,159 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve;
+
+import com.google.common.util.concurrent.Striped;
+import de.rwth.idsg.steve.ocpp.ws.SessionContextStore;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+
+/**
+ * Compares how the session selection for outgoing calls scales with the number of threads: the lock-free
+ * {@link SessionContextStore} vs. the previous implementation (a deque per charge point, guarded by a striped lock).
+ * Not a unit test: run the main method manually, on a machine with several cores.
+ *
+ * @since 18.10.2026
+ */
+public class SessionContextStoreBenchmark {
+
+    private static final int CHARGE_BOX_COUNT = 10_000;
+    private static final int SESSIONS_PER_CHARGE_BOX = 2;
+
+    private static final long WARM_UP_MILLIS = 2_000;
+    private static final long MEASURE_MILLIS = 3_000;
+
+    public static void main(String[] args) throws Exception {
+        String[] chargeBoxIds = new String[CHARGE_BOX_COUNT];
+        for (int i = 0; i < CHARGE_BOX_COUNT; i++) {
+            chargeBoxIds[i] = "CP-" + i;
+        }
+
+        SessionContextStore lockFree = new SessionContextStore();
+        StripedLockStore striped = new StripedLockStore();
+        for (String chargeBoxId : chargeBoxIds) {
+            for (int i = 0; i < SESSIONS_PER_CHARGE_BOX; i++) {
+                WebSocketSession session = createSession(chargeBoxId + "-" + i);
+                lockFree.add(chargeBoxId, session, () -> 0);
+                striped.add(chargeBoxId, session);
+            }
+        }
+
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            run("lock-free     ", threads, chargeBoxIds, lockFree::getSession);
+            run("striped lock  ", threads, chargeBoxIds, striped::getSession);
+        }
+    }
+
+    private static void run(String name, int threads, String[] chargeBoxIds,
+                            Function<String, WebSocketSession> getSession) throws InterruptedException {
+        AtomicBoolean measuring = new AtomicBoolean(false);
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        LongAdder ops = new LongAdder();
+        LongAdder sink = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            int offset = t * (chargeBoxIds.length / threads);
+            Thread thread = new Thread(() -> {
+                long threadSink = 0;
+                int i = offset;
+                while (!stopped.get()) {
+                    // Check the flags only every few operations, such that they do not dominate the loop
+                    long count = 0;
+                    for (int k = 0; k < 1_000; k++) {
+                        threadSink += getSession.apply(chargeBoxIds[i]).getId().length();
+                        i = (i + 1) % chargeBoxIds.length;
+                        count++;
+                    }
+                    if (measuring.get()) {
+                        ops.add(count);
+                    }
+                }
+                sink.add(threadSink);
+                done.countDown();
+            });
+            thread.start();
+        }
+
+        TimeUnit.MILLISECONDS.sleep(WARM_UP_MILLIS);
+        measuring.set(true);
+        TimeUnit.MILLISECONDS.sleep(MEASURE_MILLIS);
+        measuring.set(false);
+        stopped.set(true);
+        done.await();
+
+        double opsPerSecond = ops.sum() * 1000.0 / MEASURE_MILLIS;
+        System.out.printf("%s / %2d threads: %12.0f ops/s (sink: %d)%n", name, threads, opsPerSecond, sink.sum());
+    }
+
+    private static WebSocketSession createSession(String id) {
+        return (WebSocketSession) Proxy.newProxyInstance(
+                WebSocketSession.class.getClassLoader(),
+                new Class<?>[] {WebSocketSession.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getId": return id;
+                        case "isOpen": return true;
+                        case "hashCode": return id.hashCode();
+                        case "equals": return proxy == args[0];
+                        default: return null;
+                    }
+                });
+    }
+
+    /**
+     * The previous implementation with the ALWAYS_LAST strategy, kept here only as the baseline
+     */
+    private static class StripedLockStore {
+        private final Map<String, Deque<WebSocketSession>> lookupTable = new ConcurrentHashMap<>();
+        private final Striped<Lock> locks = Striped.lock(16);
+
+        private void add(String chargeBoxId, WebSocketSession session) {
+            Lock l = locks.get(chargeBoxId);
+            l.lock();
+            try {
+                lookupTable.computeIfAbsent(chargeBoxId, str -> new ArrayDeque<>()).addLast(session);
+            } finally {
+                l.unlock();
+            }
+        }
+
+        private WebSocketSession getSession(String chargeBoxId) {
+            Lock l = locks.get(chargeBoxId);
+            l.lock();
+            try {
+                return lookupTable.get(chargeBoxId).getLast();
+            } finally {
+                l.unlock();
+            }
+        }
+    }
+}
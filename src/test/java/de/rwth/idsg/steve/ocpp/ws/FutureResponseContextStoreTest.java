@@ -0,0 +1,273 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import de.rwth.idsg.steve.SteveException;
+import de.rwth.idsg.steve.ocpp.OcppTransport;
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import de.rwth.idsg.steve.ocpp.task.ClearCacheTask;
+import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
+import de.rwth.idsg.steve.ocpp.ws.data.FutureResponseContext;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
+import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
+import de.rwth.idsg.steve.service.MetricsService;
+import de.rwth.idsg.steve.web.dto.ocpp.MultipleChargePointSelect;
+import ocpp.cp._2015._10.ClearCacheResponse;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Only one call per session is in flight. The next one is sent when the previous one is released.
+ *
+ * @since 18.10.2026
+ */
+public class FutureResponseContextStoreTest {
+
+    private static final String CHARGE_BOX_ID = "charge-box-1";
+
+    private ScheduledExecutorService executor;
+    private FutureResponseContextStore store;
+
+    private TestSession session;
+
+    @Before
+    public void init() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+
+        store = new FutureResponseContextStore();
+        ReflectionTestUtils.setField(store, "executorService", executor);
+        ReflectionTestUtils.setField(store, "metricsService", new MetricsService());
+        store.init();
+        ReflectionTestUtils.setField(store, "callTimeoutInSeconds", 1);
+
+        session = new TestSession("session-1");
+        store.addSession(session.proxy);
+    }
+
+    @After
+    public void destroy() {
+        store.destroy();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testReleasedOnResponse() {
+        CommunicationContext first = call("1");
+        CommunicationContext second = call("2");
+
+        store.submit(first);
+        store.submit(second);
+        Assert.assertEquals(Collections.singletonList("1"), session.sent);
+
+        // The second one is not sent yet, so there cannot be a response for it
+        Assert.assertNull(store.get(session.proxy, "2"));
+
+        Assert.assertSame(first.getFutureResponseContext(), store.get(session.proxy, "1"));
+        Assert.assertEquals(Arrays.asList("1", "2"), session.sent);
+
+        Assert.assertSame(second.getFutureResponseContext(), store.get(session.proxy, "2"));
+        Assert.assertNull(store.get(session.proxy, "2"));
+    }
+
+    @Test
+    public void testReleasedOnTimeout() throws Exception {
+        CommunicationContext first = call("1");
+        CommunicationContext second = call("2");
+
+        store.submit(first);
+        store.submit(second);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while ((session.sent.size() < 2 || getError(first) == null) && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+
+        Assert.assertEquals(Arrays.asList("1", "2"), session.sent);
+        Assert.assertNotNull(getError(first));
+        Assert.assertNull(store.get(session.proxy, "1"));
+    }
+
+    @Test
+    public void testReleasedOnSendFailure() {
+        CommunicationContext first = call("1");
+        CommunicationContext second = call("2");
+        CommunicationContext third = call("3");
+
+        store.submit(first);
+        store.submit(second);
+        store.submit(third);
+
+        // Sending the second one fails when the first one is answered, so the third one goes next
+        session.failNextSend.set(true);
+        store.get(session.proxy, "1");
+
+        Assert.assertEquals(Arrays.asList("1", "3"), session.sent);
+        Assert.assertNotNull(getError(second));
+        Assert.assertNull(getError(third));
+        Assert.assertSame(third.getFutureResponseContext(), store.get(session.proxy, "3"));
+    }
+
+    @Test
+    public void testSubmitFailsIfSendFails() {
+        session.failNextSend.set(true);
+        try {
+            store.submit(call("1"));
+            Assert.fail("Expected the send failure to be thrown");
+        } catch (SteveException e) {
+            // expected
+        }
+
+        // The failed call does not block the session
+        store.submit(call("2"));
+        Assert.assertEquals(Collections.singletonList("2"), session.sent);
+    }
+
+    @Test
+    public void testDrainedOnClose() {
+        CommunicationContext first = call("1");
+        CommunicationContext second = call("2");
+
+        store.submit(first);
+        store.submit(second);
+        store.removeSession(session.proxy);
+
+        Assert.assertNotNull(getError(first));
+        Assert.assertNotNull(getError(second));
+        Assert.assertEquals(Collections.singletonList("1"), session.sent);
+    }
+
+    @Test
+    public void testSubmitAfterClose() {
+        store.removeSession(session.proxy);
+
+        try {
+            store.submit(call("1"));
+            Assert.fail("Expected the call to be refused");
+        } catch (SteveException e) {
+            // expected
+        }
+
+        List<Exception> failures = new CopyOnWriteArrayList<>();
+        store.submitAll(Collections.singletonList(call("2")), (context, e) -> failures.add(e));
+
+        Assert.assertEquals(1, failures.size());
+        Assert.assertTrue(session.sent.isEmpty());
+    }
+
+    @Test
+    public void testMaxPendingCalls() {
+        int maxPendingCalls = CONFIG.getOcpp().getWsMaxPendingCallsPerSession();
+
+        for (int i = 0; i < maxPendingCalls; i++) {
+            store.submit(call(String.valueOf(i)));
+        }
+
+        try {
+            store.submit(call("one-too-many"));
+            Assert.fail("Expected the call to be refused");
+        } catch (SteveException e) {
+            // expected
+        }
+        Assert.assertEquals(1, session.sent.size());
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private CommunicationContext call(String messageId) {
+        OcppJsonCall call = new OcppJsonCall();
+        call.setMessageId(messageId);
+        call.setAction("ClearCache");
+
+        MultipleChargePointSelect params = new MultipleChargePointSelect();
+        params.setChargePointSelectList(
+                Collections.singletonList(new ChargePointSelect(OcppTransport.JSON, CHARGE_BOX_ID)));
+        ClearCacheTask task = new ClearCacheTask(OcppVersion.V_16, params);
+
+        CommunicationContext context = new CommunicationContext(session.proxy, CHARGE_BOX_ID);
+        context.setOutgoingMessage(call);
+        context.setOutgoingString(messageId);
+        context.setFutureResponseContext(new FutureResponseContext(task, ClearCacheResponse.class));
+        return context;
+    }
+
+    private static String getError(CommunicationContext context) {
+        return context.getFutureResponseContext()
+                      .getTask()
+                      .getResultMap()
+                      .get(CHARGE_BOX_ID)
+                      .getErrorMessage();
+    }
+
+    /**
+     * Records the sent messages, and fails the next send on demand
+     */
+    private static class TestSession {
+        private final List<String> sent = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean failNextSend = new AtomicBoolean();
+        private final WebSocketSession proxy;
+
+        private TestSession(String id) {
+            Map<String, Object> attributes = new HashMap<>();
+            attributes.put(AbstractWebSocketEndpoint.CHARGEBOX_ID_KEY, CHARGE_BOX_ID);
+
+            proxy = (WebSocketSession) Proxy.newProxyInstance(
+                    WebSocketSession.class.getClassLoader(),
+                    new Class<?>[] {WebSocketSession.class},
+                    (p, method, args) -> {
+                        switch (method.getName()) {
+                            case "getId": return id;
+                            case "getAttributes": return attributes;
+                            case "isOpen": return true;
+                            case "hashCode": return id.hashCode();
+                            case "equals": return p == args[0];
+                            case "toString": return id;
+                            case "sendMessage":
+                                if (failNextSend.getAndSet(false)) {
+                                    throw new IOException("Send failed");
+                                }
+                                sent.add(((TextMessage) args[0]).getPayload());
+                                return null;
+                            default: return null;
+                        }
+                    });
+        }
+    }
+}
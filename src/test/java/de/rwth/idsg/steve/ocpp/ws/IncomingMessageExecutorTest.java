@@ -0,0 +1,170 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import de.rwth.idsg.steve.service.MetricsService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @since 18.10.2026
+ */
+public class IncomingMessageExecutorTest {
+
+    private IncomingMessageExecutor executor;
+    private final List<String> processed = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void init() {
+        executor = new IncomingMessageExecutor();
+        ReflectionTestUtils.setField(executor, "metricsService", new MetricsService());
+        executor.init();
+
+        // one worker, such that the order of the lanes is deterministic
+        ((ExecutorService) ReflectionTestUtils.getField(executor, "workers")).shutdownNow();
+        ReflectionTestUtils.setField(executor, "workers",
+                new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>()));
+    }
+
+    @After
+    public void destroy() {
+        executor.shutDown();
+    }
+
+    @Test
+    public void testFifoPerStation() throws Exception {
+        CountDownLatch latch = new CountDownLatch(200);
+        List<String> expected = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            String message = String.valueOf(i);
+            expected.add(message);
+            // the priorities must not reorder the messages of a station
+            IncomingPriority priority = IncomingPriority.values()[i % IncomingPriority.values().length];
+            executor.forceSubmit("cp-1", priority, () -> {
+                processed.add(message);
+                latch.countDown();
+            });
+        }
+
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(expected, processed);
+    }
+
+    @Test
+    public void testLaneLimit() throws Exception {
+        ReflectionTestUtils.setField(executor, "maxLaneSize", 2);
+
+        CountDownLatch release = blockWorker();
+
+        CountDownLatch latch = new CountDownLatch(4);
+        Assert.assertTrue(executor.trySubmit("cp-1", IncomingPriority.STATUS, () -> add("1", latch)));
+        Assert.assertTrue(executor.trySubmit("cp-1", IncomingPriority.STATUS, () -> add("2", latch)));
+        Assert.assertFalse(executor.trySubmit("cp-1", IncomingPriority.STATUS, () -> add("3", latch)));
+        Assert.assertTrue(executor.trySubmit("cp-2", IncomingPriority.STATUS, () -> add("4", latch)));
+        executor.forceSubmit("cp-1", IncomingPriority.STATUS, () -> add("5", latch));
+
+        release.countDown();
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList("1", "2", "5", "4"), processed);
+    }
+
+    @Test
+    public void testPriorityAcrossStations() throws Exception {
+        CountDownLatch release = blockWorker();
+
+        CountDownLatch latch = new CountDownLatch(4);
+        executor.trySubmit("cp-1", IncomingPriority.BULK, () -> add("bulk", latch));
+        executor.trySubmit("cp-2", IncomingPriority.STATUS, () -> add("status", latch));
+        executor.trySubmit("cp-3", IncomingPriority.TRANSACTION, () -> add("transaction", latch));
+        executor.trySubmit("cp-4", IncomingPriority.STATUS, () -> add("status-2", latch));
+
+        release.countDown();
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList("transaction", "status", "status-2", "bulk"), processed);
+    }
+
+    @Test
+    public void testUrgentMessageTakesBacklogAlong() throws Exception {
+        CountDownLatch release = blockWorker();
+
+        CountDownLatch latch = new CountDownLatch(3);
+        executor.trySubmit("cp-1", IncomingPriority.BULK, () -> add("other-meterValues", latch));
+        executor.trySubmit("cp-2", IncomingPriority.BULK, () -> add("meterValues", latch));
+        executor.trySubmit("cp-2", IncomingPriority.TRANSACTION, () -> add("startTransaction", latch));
+
+        release.countDown();
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList("meterValues", "startTransaction", "other-meterValues"), processed);
+    }
+
+    @Test
+    public void testExceptionDoesNotStopLane() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+
+        executor.trySubmit("cp-1", IncomingPriority.STATUS, () -> {
+            throw new IllegalStateException("expected");
+        });
+        executor.trySubmit("cp-1", IncomingPriority.STATUS, () -> add("after", latch));
+
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Collections.singletonList("after"), processed);
+    }
+
+    /**
+     * @return the latch that releases the only worker again
+     */
+    private CountDownLatch blockWorker() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.trySubmit("cp-blocker", IncomingPriority.TRANSACTION, () -> {
+            blocked.countDown();
+            await(release);
+        });
+        Assert.assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    private void add(String message, CountDownLatch latch) {
+        processed.add(message);
+        latch.countDown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
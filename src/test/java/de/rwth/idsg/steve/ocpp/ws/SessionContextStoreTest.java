@@ -0,0 +1,187 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import de.rwth.idsg.steve.ocpp.ws.data.SessionContext;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @since 18.10.2026
+ */
+public class SessionContextStoreTest {
+
+    private static final int THREADS = 8;
+    private static final int SESSIONS_PER_THREAD = 500;
+
+    private final SessionContextStore store = new SessionContextStore();
+
+    @Test
+    public void testAddAndRemove() {
+        WebSocketSession first = session("1");
+        WebSocketSession second = session("2");
+
+        Assert.assertEquals(0, store.add("cp-1", first, () -> 0));
+        Assert.assertEquals(1, store.add("cp-1", second, () -> 0));
+        Assert.assertEquals(2, store.getSize("cp-1"));
+        Assert.assertEquals(1, store.getNumberOfChargeBoxes());
+
+        Assert.assertEquals(1, store.remove("cp-1", first));
+        Assert.assertEquals(1, store.remove("cp-1", first));
+        Assert.assertEquals(0, store.remove("cp-1", second));
+
+        // The empty entry is deleted, such that the charge point is not counted anymore
+        Assert.assertEquals(0, store.getNumberOfChargeBoxes());
+        Assert.assertEquals(0, store.remove("cp-1", second));
+    }
+
+    @Test
+    public void testSnapshotIsNotAffectedByLaterChanges() {
+        WebSocketSession first = session("1");
+        store.add("cp-1", first, () -> 0);
+
+        Map<String, List<SessionContext>> copy = store.getACopy();
+
+        store.add("cp-1", session("2"), () -> 0);
+        store.remove("cp-1", first);
+
+        Assert.assertEquals(1, copy.get("cp-1").size());
+        Assert.assertSame(first, copy.get("cp-1").get(0).getSession());
+    }
+
+    @Test
+    public void testConcurrentAdds() throws Exception {
+        runConcurrently(thread -> {
+            for (int i = 0; i < SESSIONS_PER_THREAD; i++) {
+                store.add("cp-1", session(thread + "-" + i), () -> 0);
+            }
+        });
+
+        Assert.assertEquals(THREADS * SESSIONS_PER_THREAD, store.getSize("cp-1"));
+
+        // None is lost or duplicated
+        Set<String> ids = new HashSet<>();
+        for (SessionContext context : store.getACopy().get("cp-1")) {
+            Assert.assertTrue(ids.add(context.getSession().getId()));
+        }
+    }
+
+    @Test
+    public void testConcurrentRemoves() throws Exception {
+        List<List<WebSocketSession>> sessionsPerThread = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            List<WebSocketSession> sessions = new ArrayList<>();
+            for (int i = 0; i < SESSIONS_PER_THREAD; i++) {
+                WebSocketSession session = session(thread + "-" + i);
+                store.add("cp-1", session, () -> 0);
+                sessions.add(session);
+            }
+            sessionsPerThread.add(sessions);
+        }
+
+        runConcurrently(thread -> {
+            for (WebSocketSession session : sessionsPerThread.get(thread)) {
+                store.remove("cp-1", session);
+            }
+        });
+
+        Assert.assertEquals(0, store.getSize("cp-1"));
+        Assert.assertEquals(0, store.getNumberOfChargeBoxes());
+    }
+
+    @Test
+    public void testConcurrentAddsAndRemoves() throws Exception {
+        // Each thread keeps one session of its own open, and reconnects the others in quick succession
+        runConcurrently(thread -> {
+            store.add("cp-1", session(thread + "-stays"), () -> 0);
+
+            for (int i = 0; i < SESSIONS_PER_THREAD; i++) {
+                WebSocketSession session = session(thread + "-" + i);
+                store.add("cp-1", session, () -> 0);
+                store.remove("cp-1", session);
+            }
+        });
+
+        Assert.assertEquals(THREADS, store.getSize("cp-1"));
+        for (SessionContext context : store.getACopy().get("cp-1")) {
+            Assert.assertTrue(context.getSession().getId().endsWith("-stays"));
+        }
+    }
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    /**
+     * Starts the threads at the same time, in order to provoke the retries of the compare-and-set
+     */
+    private static void runConcurrently(ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CyclicBarrier barrier = new CyclicBarrier(THREADS);
+
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int threadIndex = thread;
+                Callable<Void> callable = () -> {
+                    barrier.await();
+                    body.run(threadIndex);
+                    return null;
+                };
+                futures.add(executor.submit(callable));
+            }
+
+            for (Future<Void> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static WebSocketSession session(String id) {
+        return (WebSocketSession) Proxy.newProxyInstance(
+                WebSocketSession.class.getClassLoader(),
+                new Class<?>[] {WebSocketSession.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getId": return id;
+                        case "isOpen": return true;
+                        case "hashCode": return id.hashCode();
+                        case "equals": return proxy == args[0];
+                        case "toString": return id;
+                        default: return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.custom;
+
+import de.rwth.idsg.steve.ocpp.ws.data.SessionContext;
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @since 18.10.2026
+ */
+public class WsSessionSelectStrategyEnumTest {
+
+    private static final WsSessionSelectStrategy LEAST_PENDING = WsSessionSelectStrategyEnum.LEAST_PENDING;
+
+    @Test
+    public void testLeastPending() {
+        SessionContext busy = context("busy", true, 5);
+        SessionContext idle = context("idle", true, 0);
+        SessionContext moderate = context("moderate", true, 2);
+
+        Assert.assertSame(idle.getSession(), LEAST_PENDING.getSession(Arrays.asList(busy, idle, moderate)));
+    }
+
+    @Test
+    public void testLeastPendingTie() {
+        SessionContext older = context("older", true, 1);
+        SessionContext newer = context("newer", true, 1);
+
+        Assert.assertSame(newer.getSession(), LEAST_PENDING.getSession(Arrays.asList(older, newer)));
+    }
+
+    @Test
+    public void testLeastPendingCurrentCount() {
+        AtomicInteger pending = new AtomicInteger(0);
+        SessionContext first = new SessionContext(session("first", true), DateTime.now(), pending::get);
+        SessionContext second = context("second", true, 3);
+        List<SessionContext> contexts = Arrays.asList(first, second);
+
+        Assert.assertSame(first.getSession(), LEAST_PENDING.getSession(contexts));
+
+        pending.set(4);
+        Assert.assertSame(second.getSession(), LEAST_PENDING.getSession(contexts));
+    }
+
+    @Test
+    public void testLeastPendingClosed() {
+        SessionContext closed = context("closed", false, 0);
+        SessionContext open = context("open", true, 10);
+
+        Assert.assertSame(open.getSession(), LEAST_PENDING.getSession(Arrays.asList(open, closed)));
+    }
+
+    @Test
+    public void testLeastPendingAllClosed() {
+        SessionContext busy = context("busy", false, 3);
+        SessionContext idle = context("idle", false, 1);
+
+        Assert.assertSame(idle.getSession(), LEAST_PENDING.getSession(Arrays.asList(busy, idle)));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testLeastPendingEmpty() {
+        LEAST_PENDING.getSession(Collections.emptyList());
+    }
+
+    private static SessionContext context(String id, boolean open, int pendingCalls) {
+        return new SessionContext(session(id, open), DateTime.now(), () -> pendingCalls);
+    }
+
+    private static WebSocketSession session(String id, boolean open) {
+        return (WebSocketSession) Proxy.newProxyInstance(
+                WebSocketSession.class.getClassLoader(),
+                new Class<?>[] {WebSocketSession.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getId": return id;
+                        case "isOpen": return open;
+                        case "hashCode": return id.hashCode();
+                        case "equals": return proxy == args[0];
+                        case "toString": return id;
+                        default: return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockDataProvider;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static jooq.steve.db.tables.Connector.CONNECTOR;
+
+/**
+ * @since 18.10.2026
+ */
+public class ConnectorPkCacheTest {
+
+    @Test
+    public void testCached() {
+        AtomicInteger connectorPk = new AtomicInteger(1);
+        ConnectorPkCache cache = new ConnectorPkCache(database(connectorPk, () -> { }));
+
+        Assert.assertEquals(1, cache.getOrInsert("cp-1", 1));
+
+        // not looked up again
+        connectorPk.set(2);
+        Assert.assertEquals(1, cache.getOrInsert("cp-1", 1));
+        Assert.assertEquals(2, cache.getOrInsert("cp-1", 2));
+        Assert.assertEquals(2, cache.getOrInsert("cp-2", 1));
+    }
+
+    @Test
+    public void testInvalidate() {
+        AtomicInteger connectorPk = new AtomicInteger(1);
+        ConnectorPkCache cache = new ConnectorPkCache(database(connectorPk, () -> { }));
+
+        cache.getOrInsert("cp-1", 1);
+        cache.getOrInsert("cp-2", 1);
+
+        // the charge point is deleted and added again, so its connector gets a new key
+        connectorPk.set(2);
+        cache.invalidate("cp-1");
+
+        Assert.assertEquals(2, cache.getOrInsert("cp-1", 1));
+        Assert.assertEquals(1, cache.getOrInsert("cp-2", 1));
+    }
+
+    @Test
+    public void testInvalidationDuringLookup() {
+        AtomicInteger connectorPk = new AtomicInteger(1);
+        AtomicReference<ConnectorPkCache> cache = new AtomicReference<>();
+
+        // the charge point is deleted right after its connector was looked up, and added again
+        cache.set(new ConnectorPkCache(database(connectorPk, () -> {
+            if (connectorPk.compareAndSet(1, 2)) {
+                cache.get().invalidate("cp-1");
+            }
+        })));
+
+        Assert.assertEquals(1, cache.get().getOrInsert("cp-1", 1));
+        Assert.assertEquals(2, cache.get().getOrInsert("cp-1", 1));
+    }
+
+    /**
+     * Every connector has the given key
+     */
+    private static DSLContext database(AtomicInteger connectorPk, Runnable afterSelect) {
+        MockDataProvider provider = context -> {
+            if (context.sql().toLowerCase().startsWith("insert")) {
+                return new MockResult[] {new MockResult(0, null)};
+            }
+
+            DSLContext create = DSL.using(SQLDialect.MYSQL);
+            Result<Record1<Integer>> result = create.newResult(CONNECTOR.CONNECTOR_PK);
+            result.add(create.newRecord(CONNECTOR.CONNECTOR_PK).values(connectorPk.get()));
+            afterSelect.run();
+            return new MockResult[] {new MockResult(1, result)};
+        };
+        return DSL.using(new MockConnection(provider), SQLDialect.MYSQL);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import de.rwth.idsg.steve.repository.dto.OcppTagState;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * @since 18.10.2026
+ */
+public class OcppTagStateCacheTest {
+
+    private final OcppTagStateCache cache = new OcppTagStateCache();
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    @Test
+    public void testLoadedOnce() {
+        OcppTagState state = cache.get("tag-1", loader(1));
+
+        Assert.assertSame(state, cache.get("tag-1", loader(1)));
+        Assert.assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testUnknownTagIsNotCached() {
+        Function<String, OcppTagState> unknown = idTag -> {
+            loadCount.incrementAndGet();
+            return null;
+        };
+
+        Assert.assertNull(cache.get("tag-1", unknown));
+        Assert.assertNotNull(cache.get("tag-1", loader(1)));
+        Assert.assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void testStatsCountEachLookupOnce() {
+        cache.get("tag-1", loader(1));
+        cache.get("tag-1", loader(1));
+
+        Assert.assertEquals(1, cache.stats().missCount());
+        Assert.assertEquals(1, cache.stats().hitCount());
+    }
+
+    @Test
+    public void testInvalidate() {
+        cache.get("tag-1", loader(1));
+        cache.get("tag-2", loader(2));
+
+        cache.invalidate("tag-1");
+        Assert.assertEquals(1, cache.size());
+
+        cache.get("tag-1", loader(1));
+        cache.get("tag-2", loader(2));
+        Assert.assertEquals(3, loadCount.get());
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        cache.get("tag-1", loader(1));
+        cache.get("tag-2", loader(2));
+
+        cache.invalidateAll();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testInvalidationDuringLoad() {
+        // The tag is changed while its old state is being loaded
+        Function<String, OcppTagState> outdated = idTag -> {
+            OcppTagState state = loader(1).apply(idTag);
+            cache.invalidate("tag-1");
+            return state;
+        };
+
+        Assert.assertNotNull(cache.get("tag-1", outdated));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testChangeActiveTransactions() {
+        cache.get("tag-1", loader(1));
+
+        String result = cache.changeActiveTransactions("tag-1", () -> "started", r -> 1);
+        Assert.assertEquals("started", result);
+        Assert.assertEquals(1, cache.get("tag-1", loader(1)).getActiveTransactionCount());
+
+        cache.changeActiveTransactions("tag-1", () -> "stopped", r -> -1);
+        Assert.assertEquals(0, cache.get("tag-1", loader(1)).getActiveTransactionCount());
+
+        // Not loaded by the change itself
+        cache.changeActiveTransactions("tag-2", () -> "started", r -> 1);
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(1, loadCount.get());
+    }
+
+    private Function<String, OcppTagState> loader(int ocppTagPk) {
+        return idTag -> {
+            loadCount.incrementAndGet();
+            return OcppTagState.builder()
+                               .ocppTagPk(ocppTagPk)
+                               .idTag(idTag)
+                               .maxActiveTransactionCount(1)
+                               .build();
+        };
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * @since 18.10.2026
+ */
+public class RegistrationStatusCacheTest {
+
+    private final RegistrationStatusCache cache = new RegistrationStatusCache();
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    @Test
+    public void testLoadedOnce() {
+        Assert.assertEquals(Optional.of("Accepted"), cache.get("cp-1", loader("Accepted")));
+        Assert.assertEquals(Optional.of("Accepted"), cache.get("cp-1", loader("Accepted")));
+        Assert.assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testUnknownStationIsCached() {
+        Assert.assertEquals(Optional.empty(), cache.get("cp-1", loader(null)));
+        Assert.assertEquals(Optional.empty(), cache.get("cp-1", loader(null)));
+        Assert.assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testInvalidate() {
+        cache.get("cp-1", loader("Accepted"));
+        cache.get("cp-2", loader("Accepted"));
+
+        cache.invalidate("cp-1");
+
+        Assert.assertEquals(Optional.of("Rejected"), cache.get("cp-1", loader("Rejected")));
+        Assert.assertEquals(Optional.of("Accepted"), cache.get("cp-2", loader("Rejected")));
+        Assert.assertEquals(3, loadCount.get());
+    }
+
+    @Test
+    public void testInvalidateUnknownStation() {
+        // The station is added after it tried to connect
+        cache.get("cp-1", loader(null));
+        cache.invalidate("cp-1");
+
+        Assert.assertEquals(Optional.of("Accepted"), cache.get("cp-1", loader("Accepted")));
+    }
+
+    @Test
+    public void testInvalidateList() {
+        cache.get("cp-1", loader("Accepted"));
+        cache.get("cp-2", loader("Accepted"));
+        cache.get("cp-3", loader("Accepted"));
+
+        cache.invalidate(Arrays.asList("cp-1", "cp-2"));
+
+        cache.get("cp-1", loader("Accepted"));
+        cache.get("cp-2", loader("Accepted"));
+        cache.get("cp-3", loader("Accepted"));
+        Assert.assertEquals(5, loadCount.get());
+    }
+
+    @Test
+    public void testInvalidationDuringLoad() {
+        // The station is updated while its old status is being loaded
+        Function<String, Optional<String>> outdated = chargeBoxId -> {
+            Optional<String> status = loader("Pending").apply(chargeBoxId);
+            cache.invalidate(chargeBoxId);
+            return status;
+        };
+
+        Assert.assertEquals(Optional.of("Pending"), cache.get("cp-1", outdated));
+        Assert.assertEquals(Optional.of("Accepted"), cache.get("cp-1", loader("Accepted")));
+        Assert.assertEquals(2, loadCount.get());
+    }
+
+    private Function<String, Optional<String>> loader(String status) {
+        return chargeBoxId -> {
+            loadCount.incrementAndGet();
+            return Optional.ofNullable(status);
+        };
+    }
+}
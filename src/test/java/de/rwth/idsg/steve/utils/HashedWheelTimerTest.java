@@ -0,0 +1,78 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.utils;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @since 18.10.2026
+ */
+public class HashedWheelTimerTest {
+
+    private ScheduledExecutorService executor;
+    private HashedWheelTimer timer;
+
+    @Before
+    public void init() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        // small wheel, such that the timeouts below need more than one round
+        timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 4);
+        timer.start(executor);
+    }
+
+    @After
+    public void destroy() {
+        timer.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testExpire() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        timer.newTimeout(latch::countDown, 100, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        AtomicInteger expired = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        HashedWheelTimer.Timeout cancelled = timer.newTimeout(expired::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+        timer.newTimeout(latch::countDown, 150, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(cancelled.cancel());
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, expired.get());
+        Assert.assertFalse(cancelled.cancel());
+    }
+}
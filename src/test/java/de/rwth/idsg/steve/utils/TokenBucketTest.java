@@ -0,0 +1,104 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/RWTH-i5-IDSG/steve
+ * Copyright (C) 2013-2020 RWTH Aachen University - Information Systems - Intelligent Distributed Systems Group (IDSG).
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @since 18.10.2026
+ */
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testStartsFull() {
+        TokenBucket bucket = new TokenBucket(1, 3);
+        long now = System.nanoTime();
+
+        Assert.assertEquals(0, bucket.tryAcquire(now));
+        Assert.assertEquals(0, bucket.tryAcquire(now));
+        Assert.assertEquals(0, bucket.tryAcquire(now));
+        Assert.assertTrue(bucket.tryAcquire(now) > 0);
+    }
+
+    @Test
+    public void testWaitTimeWhenEmpty() {
+        TokenBucket bucket = new TokenBucket(2, 1);
+        long now = System.nanoTime();
+
+        Assert.assertEquals(0, bucket.tryAcquire(now));
+
+        // One token every half second
+        Assert.assertEquals(SECOND / 2, bucket.tryAcquire(now), 1_000);
+        Assert.assertEquals(SECOND / 4, bucket.tryAcquire(now + SECOND / 4), 1_000);
+    }
+
+    @Test
+    public void testRefill() {
+        TokenBucket bucket = new TokenBucket(1, 1);
+        long now = System.nanoTime();
+
+        Assert.assertEquals(0, bucket.tryAcquire(now));
+        Assert.assertTrue(bucket.tryAcquire(now + SECOND / 2) > 0);
+
+        // A failed attempt does not consume anything
+        Assert.assertEquals(0, bucket.tryAcquire(now + SECOND + SECOND / 10));
+        Assert.assertTrue(bucket.tryAcquire(now + SECOND + SECOND / 10) > 0);
+    }
+
+    @Test
+    public void testRefillIsCappedAtCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 2);
+        long now = System.nanoTime();
+
+        Assert.assertEquals(0, bucket.tryAcquire(now));
+        Assert.assertEquals(0, bucket.tryAcquire(now));
+
+        // Idle for a long time. Still, only the capacity is available.
+        long later = now + 100 * SECOND;
+        Assert.assertEquals(0, bucket.tryAcquire(later));
+        Assert.assertEquals(0, bucket.tryAcquire(later));
+        Assert.assertTrue(bucket.tryAcquire(later) > 0);
+    }
+
+    @Test
+    public void testTimeGoingBackDoesNotRefill() {
+        TokenBucket bucket = new TokenBucket(1, 1);
+        long now = System.nanoTime() + SECOND;
+
+        Assert.assertEquals(0, bucket.tryAcquire(now));
+        Assert.assertTrue(bucket.tryAcquire(now - SECOND / 2) > 0);
+        Assert.assertTrue(bucket.tryAcquire(now) > 0);
+    }
+
+    @Test
+    public void testFractionalRate() {
+        // 6 per minute, i.e. one token every 10 seconds
+        TokenBucket bucket = new TokenBucket(0.1, 1);
+        long now = System.nanoTime();
+
+        Assert.assertEquals(0, bucket.tryAcquire(now));
+        Assert.assertTrue(bucket.tryAcquire(now + 9 * SECOND) > 0);
+        Assert.assertEquals(0, bucket.tryAcquire(now + 11 * SECOND));
+    }
+}
@@ -28,7 +28,10 @@ import de.rwth.idsg.steve.repository.dto.Transaction;
 import de.rwth.idsg.steve.repository.dto.TransactionDetails;
 import de.rwth.idsg.steve.repository.impl.AddressRepositoryImpl;
 import de.rwth.idsg.steve.repository.impl.ChargePointRepositoryImpl;
+import de.rwth.idsg.steve.repository.impl.ConnectorPkCache;
 import de.rwth.idsg.steve.repository.impl.OcppTagRepositoryImpl;
+import de.rwth.idsg.steve.repository.impl.OcppTagStateCache;
+import de.rwth.idsg.steve.repository.impl.RegistrationStatusCache;
 import de.rwth.idsg.steve.repository.impl.ReservationRepositoryImpl;
 import de.rwth.idsg.steve.repository.impl.TransactionRepositoryImpl;
 import de.rwth.idsg.steve.web.dto.ReservationQueryForm;
@@ -125,7 +128,8 @@ public class __DatabasePreparer__ {
     }
 
     public static List<ConnectorStatus> getChargePointConnectorStatus() {
-        ChargePointRepositoryImpl impl = new ChargePointRepositoryImpl(dslContext, new AddressRepositoryImpl());
+        ChargePointRepositoryImpl impl = new ChargePointRepositoryImpl(dslContext, new AddressRepositoryImpl(),
+                new ConnectorPkCache(dslContext), new OcppTagStateCache(), new RegistrationStatusCache());
         return impl.getChargePointConnectorStatus();
     }
 
@@ -135,12 +139,13 @@ public class __DatabasePreparer__ {
     }
 
     public static OcppTagActivityRecord getOcppTagRecord(String idTag) {
-        OcppTagRepositoryImpl impl = new OcppTagRepositoryImpl(dslContext);
+        OcppTagRepositoryImpl impl = new OcppTagRepositoryImpl(dslContext, new OcppTagStateCache());
         return impl.getRecord(idTag);
     }
 
     public static ChargePoint.Details getCBDetails(String chargeboxID) {
-        ChargePointRepositoryImpl impl = new ChargePointRepositoryImpl(dslContext, new AddressRepositoryImpl());
+        ChargePointRepositoryImpl impl = new ChargePointRepositoryImpl(dslContext, new AddressRepositoryImpl(),
+                new ConnectorPkCache(dslContext), new OcppTagStateCache(), new RegistrationStatusCache());
         Map<String, Integer> pkMap = impl.getChargeBoxIdPkPair(Arrays.asList(chargeboxID));
         int pk = pkMap.get(chargeboxID);
         return impl.getDetails(pk);